@@ -0,0 +1,54 @@
+package com.mahmoud.movieChecker.benchmark;
+
+import com.mahmoud.movieChecker.config.JwtConfig;
+import com.mahmoud.movieChecker.entity.Role;
+import com.mahmoud.movieChecker.entity.TokenType;
+import com.mahmoud.movieChecker.security.jwt.Jwt;
+import com.mahmoud.movieChecker.security.jwt.JwtService;
+import com.mahmoud.movieChecker.security.jwt.Token;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtService jwtService;
+    private Token token;
+    private Jwt accessToken;
+    private String signedAccessToken;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("benchmark-secret-benchmark-secret-benchmark-secret-64-bytes-long!");
+        jwtConfig.setAccessTokenExpiration(1200);
+        jwtConfig.setRefreshTokenExpiration(604800);
+        jwtConfig.setResetTokenExpiration(600);
+
+        jwtService = new JwtService(jwtConfig, new SimpleMeterRegistry());
+        token = new Token(42L, "user@example.com", Role.USER, TokenType.ACCESS);
+        accessToken = jwtService.generateAccessToken(token);
+        signedAccessToken = accessToken.toString();
+    }
+
+    @Benchmark
+    public Jwt generateAccessToken() {
+        return jwtService.generateAccessToken(token);
+    }
+
+    @Benchmark
+    public String jwtToString() {
+        return accessToken.toString();
+    }
+
+    @Benchmark
+    public Jwt parseToken() {
+        return jwtService.parseToken(signedAccessToken);
+    }
+}
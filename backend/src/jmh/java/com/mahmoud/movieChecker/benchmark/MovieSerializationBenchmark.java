@@ -0,0 +1,71 @@
+package com.mahmoud.movieChecker.benchmark;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.entity.UserMovies;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieSerializationBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<MovieDetails> movies;
+    private List<UserMovies> userMovies;
+
+    @Setup
+    public void setUp() {
+        mapper = JsonMapper.builder().build();
+        movies = new ArrayList<>(size);
+        userMovies = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            MovieDetails movie = MovieDetails.builder()
+                    .id((long) i)
+                    .imdbId("tt" + (1_000_000 + i))
+                    .title("Movie Title " + i)
+                    .year(1980 + i % 45)
+                    .posterUrl("https://m.media-amazon.com/images/M/poster" + i + ".jpg")
+                    .genre("Action, Adventure, Sci-Fi")
+                    .genreMask(7L)
+                    .type("movie")
+                    .overview("A long enough plot summary for movie number " + i + " to resemble OMDb data.")
+                    .runtime((90 + i % 60) + " min")
+                    .imdbRate(5.0 + (i % 50) / 10.0)
+                    .build();
+
+            movies.add(movie);
+            userMovies.add(UserMovies.builder()
+                    .id((long) i)
+                    .status(i % 2 == 0 ? MovieStatus.WATCHED : MovieStatus.WATCH_LIST)
+                    .isFavorite(i % 5 == 0)
+                    .userRate(i % 2 == 0 ? (double) (i % 11) : null)
+                    .addedAt(LocalDate.of(2024, 1, 1).plusDays(i % 365))
+                    .movieDetails(movie)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeMovieDetails() {
+        return mapper.writeValueAsBytes(movies);
+    }
+
+    @Benchmark
+    public byte[] serializeUserMovies() {
+        return mapper.writeValueAsBytes(userMovies);
+    }
+}
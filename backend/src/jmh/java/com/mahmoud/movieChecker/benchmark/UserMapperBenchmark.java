@@ -0,0 +1,40 @@
+package com.mahmoud.movieChecker.benchmark;
+
+import com.mahmoud.movieChecker.dto.UserDto;
+import com.mahmoud.movieChecker.entity.Role;
+import com.mahmoud.movieChecker.entity.User;
+import com.mahmoud.movieChecker.mapper.UserMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+    private UserMapper userMapper;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        userMapper = Mappers.getMapper(UserMapper.class);
+        user = User.builder()
+                .id(42L)
+                .name("Benchmark User")
+                .email("user@example.com")
+                .role(Role.USER)
+                .password("$2a$10$abcdefghijklmnopqrstuv")
+                .joinDate(LocalDate.of(2024, 1, 1))
+                .build();
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return userMapper.toDto(user);
+    }
+}
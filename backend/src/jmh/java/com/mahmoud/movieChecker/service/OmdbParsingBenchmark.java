@@ -0,0 +1,45 @@
+package com.mahmoud.movieChecker.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lives in the service package to reach the package-private
+ * {@link MovieDetailsService#parseMoviesTitles(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OmdbParsingBenchmark {
+    private String searchResponse;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"Search\":[");
+
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append("{\"Title\":\"Movie Title ").append(i)
+                .append("\",\"Year\":\"20").append(10 + i)
+                .append("\",\"imdbID\":\"tt00000").append(10 + i)
+                .append("\",\"Type\":\"movie\",\"Poster\":\"https://m.media-amazon.com/images/M/poster")
+                .append(i).append(".jpg\"}");
+        }
+
+        json.append("],\"totalResults\":\"10\",\"Response\":\"True\"}");
+        searchResponse = json.toString();
+    }
+
+    @Benchmark
+    public List<String> parseMoviesTitles() {
+        return MovieDetailsService.parseMoviesTitles(searchResponse);
+    }
+}
@@ -0,0 +1,570 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills a benchmark database with deterministic, skewed data: movie popularity,
+ * collection sizes and ratings follow Zipf-like distributions. Rows are written
+ * with {@code COPY} over parallel connections, then the derived tables
+ * (collection stats, popularity, facet summary) are rebuilt from them.
+ *
+ * <p>Scale factor 1 is roughly today's size: 200k movies, 50k users and 10M
+ * collection rows. Use {@code --scale=10} for 2M / 500k / 100M.
+ *
+ * <p>Run with {@code mvn -P loadtest test-compile exec:exec -Dloadtest.main=com.mahmoud.movieChecker.loadtest.DatasetGenerator
+ * -Dloadtest.args="--url=jdbc:postgresql://localhost:5432/bench --user=... --password=... --scale=10"}.
+ * Only point it at a dedicated benchmark database: the derived tables are
+ * recomputed for every row, not just the generated ones.
+ */
+public class DatasetGenerator {
+    private static final int MOVIES_PER_SCALE = 200_000;
+    private static final int USERS_PER_SCALE = 50_000;
+    private static final long USER_MOVIES_PER_SCALE = 10_000_000;
+
+    private static final int MOVIES_PER_TASK = 50_000;
+    private static final int USERS_PER_TASK = 2_000;
+    private static final int MAX_COLLECTION_SIZE = 20_000;
+
+    private static final double MOVIE_POPULARITY_EXPONENT = 1.0;
+    private static final double COLLECTION_SIZE_EXPONENT = 0.9;
+    private static final double RATING_EXPONENT = 1.5;
+    private static final int RATING_MODE = 7;
+
+    private static final String USER_PASSWORD = "password123";
+
+    private static final String[] GENRES = {
+        "Action", "Adventure", "Animation", "Biography", "Comedy", "Crime", "Documentary",
+        "Drama", "Family", "Fantasy", "History", "Horror", "Music", "Mystery",
+        "Romance", "Sci-Fi", "Sport", "Thriller", "War", "Western"
+    };
+
+    private static final String[] TYPES = {"movie", "movie", "movie", "movie", "series", "episode"};
+
+    private static final String[] TITLE_ADJECTIVES = {
+        "Dark", "Silent", "Last", "Lost", "Broken", "Golden", "Hidden", "Endless", "Red", "Wild",
+        "Cold", "Final", "Secret", "Burning", "Frozen", "Crimson", "Distant", "Electric", "Savage", "Quiet"
+    };
+
+    private static final String[] TITLE_NOUNS = {
+        "Night", "City", "River", "Empire", "Storm", "Dream", "Shadow", "Kingdom", "Ocean", "Road",
+        "Heart", "Star", "Winter", "Garden", "Horizon", "Machine", "Island", "Forest", "Signal", "Voyage"
+    };
+
+    private static final String[] PLOT_WORDS = {
+        "detective", "family", "journey", "secret", "war", "love", "betrayal", "escape", "town", "mission",
+        "friendship", "revenge", "future", "past", "crew", "heist", "island", "planet", "music", "dream"
+    };
+
+    private final Options options;
+    private final ZipfDistribution moviePopularity;
+    private final double[] ratingCumulative;
+    private final AtomicLong userMoviesRows = new AtomicLong();
+
+    private Map<String, Integer> genreIds;
+    private String passwordHash;
+    private long movieIdBase;
+    private long userIdBase;
+    private int moviePermutationStep;
+    private int userPermutationStep;
+    private double collectionSizeScale;
+
+    DatasetGenerator(Options options) {
+        this.options = options;
+        this.moviePopularity = new ZipfDistribution(options.movies(), MOVIE_POPULARITY_EXPONENT);
+        this.ratingCumulative = ratingCumulative();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DatasetGenerator(Options.parse(args)).generate();
+    }
+
+    void generate() throws Exception {
+        long started = System.nanoTime();
+
+        try (Connection connection = connect()) {
+            genreIds = registerGenres(connection);
+            movieIdBase = maxId(connection, "movie_details");
+            userIdBase = maxId(connection, "users");
+        }
+
+        passwordHash = new BCryptPasswordEncoder().encode(USER_PASSWORD);
+        moviePermutationStep = coprimeStep(options.movies());
+        userPermutationStep = coprimeStep(options.users());
+        collectionSizeScale = collectionSizeScale();
+
+        log("Generating %d movies, %d users and ~%d collection rows with %d threads (seed %d)",
+            options.movies(), options.users(), options.userMovies(), options.threads(), options.seed());
+
+        runTasks("movies", options.movies(), MOVIES_PER_TASK, this::copyMovies);
+        runTasks("users", options.users(), USERS_PER_TASK, this::copyUsers);
+        runTasks("user_movies", options.users(), USERS_PER_TASK, this::copyUserMovies);
+
+        log("Wrote %d collection rows", userMoviesRows.get());
+
+        try (Connection connection = connect()) {
+            rebuildDerivedTables(connection);
+        }
+
+        log("Done in %.1fs", (System.nanoTime() - started) / 1_000_000_000.0);
+    }
+
+    private void copyMovies(int from, int to) throws Exception {
+        copy("""
+            COPY movie_checker.movie_details
+                (id, imdb_id, title, year, poster_url, genre, genre_mask, type, overview, runtime, imdb_rate)
+            FROM STDIN (FORMAT csv)""", out -> {
+            for (int index = from; index < to; index++) {
+                long id = movieIdBase + index + 1;
+                SplittableRandom random = rowRandom(1, id);
+
+                List<String> genres = pickGenres(random);
+                long genreMask = 0;
+
+                for (String genre : genres) {
+                    genreMask |= 1L << genreIds.get(genre);
+                }
+
+                csv(out,
+                    id,
+                    String.format("ts%09d", id),
+                    movieTitle(random, id),
+                    1950 + (int) (75 * Math.sqrt(random.nextDouble())),
+                    "https://posters.example.com/" + id + ".jpg",
+                    String.join(", ", genres),
+                    genreMask,
+                    TYPES[random.nextInt(TYPES.length)],
+                    moviePlot(random),
+                    (75 + random.nextInt(90)) + " min",
+                    random.nextInt(10) == 0 ? null : String.format(Locale.ROOT, "%.1f", Math.min(9.9, Math.max(1.0, 6.3 + random.nextGaussian() * 1.2)))
+                );
+            }
+        });
+    }
+
+    private static String movieTitle(SplittableRandom random, long id) {
+        String title = TITLE_ADJECTIVES[random.nextInt(TITLE_ADJECTIVES.length)] + " "
+                + TITLE_NOUNS[random.nextInt(TITLE_NOUNS.length)];
+
+        return switch (random.nextInt(4)) {
+            case 0 -> "The " + title;
+            case 1 -> title + " " + (2 + random.nextInt(4));
+            case 2 -> title + " of the " + TITLE_NOUNS[random.nextInt(TITLE_NOUNS.length)];
+            default -> title + " " + Long.toString(id, 36);
+        };
+    }
+
+    private static String moviePlot(SplittableRandom random) {
+        StringBuilder plot = new StringBuilder("A story about");
+
+        for (int i = 0, words = 8 + random.nextInt(12); i < words; i++) {
+            plot.append(' ').append(PLOT_WORDS[random.nextInt(PLOT_WORDS.length)]);
+        }
+
+        return plot.append('.').toString();
+    }
+
+    private static List<String> pickGenres(SplittableRandom random) {
+        List<String> genres = new ArrayList<>(3);
+
+        for (int i = 0, count = 1 + random.nextInt(3); i < count; i++) {
+            // squaring skews towards the first genres, like Drama/Comedy dominating real catalogs
+            String genre = GENRES[(int) (GENRES.length * Math.pow(random.nextDouble(), 2))];
+
+            if (!genres.contains(genre)) {
+                genres.add(genre);
+            }
+        }
+
+        return genres;
+    }
+
+    private void copyUsers(int from, int to) throws Exception {
+        copy("""
+            COPY movie_checker.users (id, name, email, role, password, enabled, join_date)
+            FROM STDIN (FORMAT csv)""", out -> {
+            for (int index = from; index < to; index++) {
+                long id = userIdBase + index + 1;
+
+                csv(out,
+                    id,
+                    "Bench User " + id,
+                    "bench-user-" + id + "@example.com",
+                    "USER",
+                    passwordHash,
+                    "true",
+                    joinDate(id)
+                );
+            }
+        });
+    }
+
+    private LocalDate joinDate(long userId) {
+        return LocalDate.of(2020, 1, 1).plusDays(rowRandom(2, userId).nextInt(5 * 365));
+    }
+
+    private void copyUserMovies(int from, int to) throws Exception {
+        copy("""
+            COPY movie_checker.user_movies (user_id, movie_details_id, status, is_favorite, user_rate, added_at)
+            FROM STDIN (FORMAT csv)""", out -> {
+            Set<Integer> picked = new HashSet<>();
+            LocalDate today = LocalDate.now();
+
+            for (int index = from; index < to; index++) {
+                long userId = userIdBase + index + 1;
+                SplittableRandom random = rowRandom(3, userId);
+                LocalDate joinDate = joinDate(userId);
+                int joinedDays = (int) Math.max(1, today.toEpochDay() - joinDate.toEpochDay());
+                int size = collectionSize(index);
+
+                picked.clear();
+
+                while (picked.size() < size) {
+                    int rank = moviePopularity.sample(random);
+
+                    if (!picked.add(rank)) {
+                        continue;
+                    }
+
+                    boolean watched = random.nextInt(10) < 7;
+                    boolean rated = watched && random.nextInt(10) < 6;
+
+                    csv(out,
+                        userId,
+                        movieIdBase + permute(rank, options.movies(), moviePermutationStep) + 1,
+                        watched ? "WATCHED" : "WATCH_LIST",
+                        random.nextInt(100) < 15 ? "true" : "false",
+                        rated ? sampleRating(random) + ".0" : null,
+                        joinDate.plusDays(random.nextInt(joinedDays))
+                    );
+                }
+
+                userMoviesRows.addAndGet(size);
+            }
+        });
+    }
+
+    // Heavy users are spread over the id range instead of being the first ids.
+    private int collectionSize(int userIndex) {
+        int rank = permute(userIndex, options.users(), userPermutationStep);
+        long size = Math.round(collectionSizeScale / Math.pow(rank + 1, COLLECTION_SIZE_EXPONENT));
+
+        return (int) Math.max(1, Math.min(size, maxCollectionSize()));
+    }
+
+    private double collectionSizeScale() {
+        double sum = 0;
+
+        for (int rank = 1; rank <= options.users(); rank++) {
+            sum += 1.0 / Math.pow(rank, COLLECTION_SIZE_EXPONENT);
+        }
+
+        return options.userMovies() / sum;
+    }
+
+    private int maxCollectionSize() {
+        return Math.min(MAX_COLLECTION_SIZE, options.movies() / 4);
+    }
+
+    private int sampleRating(SplittableRandom random) {
+        double roll = random.nextDouble();
+
+        for (int rate = 0; rate < ratingCumulative.length; rate++) {
+            if (roll < ratingCumulative[rate]) {
+                return rate;
+            }
+        }
+
+        return ratingCumulative.length - 1;
+    }
+
+    // Ratings 0..10 with Zipf-like decay around the mode.
+    private static double[] ratingCumulative() {
+        double[] cumulative = new double[11];
+        double sum = 0;
+
+        for (int rate = 0; rate <= 10; rate++) {
+            sum += 1.0 / Math.pow(1 + Math.abs(rate - RATING_MODE), RATING_EXPONENT);
+            cumulative[rate] = sum;
+        }
+
+        for (int rate = 0; rate <= 10; rate++) {
+            cumulative[rate] /= sum;
+        }
+
+        return cumulative;
+    }
+
+    private void rebuildDerivedTables(Connection connection) throws SQLException {
+        Map<String, String> statements = new LinkedHashMap<>();
+
+        statements.put("sequences", """
+            SELECT setval(pg_get_serial_sequence('movie_checker.movie_details', 'id'), (SELECT MAX(id) FROM movie_checker.movie_details));
+            SELECT setval(pg_get_serial_sequence('movie_checker.users', 'id'), (SELECT MAX(id) FROM movie_checker.users));
+            """);
+
+        statements.put("user_movies_stats", """
+            TRUNCATE movie_checker.user_movies_stats, movie_checker.user_movies_genre_stats, movie_checker.user_movies_monthly_stats;
+
+            INSERT INTO movie_checker.user_movies_stats
+                (user_id, watched_count, watch_list_count, favorite_count, rated_count, user_rate_sum)
+            SELECT
+                user_id,
+                COUNT(*) FILTER (WHERE status = 'WATCHED'),
+                COUNT(*) FILTER (WHERE status = 'WATCH_LIST'),
+                COUNT(*) FILTER (WHERE is_favorite),
+                COUNT(user_rate),
+                COALESCE(SUM(user_rate), 0)
+            FROM movie_checker.user_movies
+            GROUP BY user_id;
+
+            INSERT INTO movie_checker.user_movies_genre_stats (user_id, genre, movies_count)
+            SELECT um.user_id, g.name, COUNT(*)
+            FROM movie_checker.user_movies um
+            JOIN movie_checker.movie_details md ON md.id = um.movie_details_id
+            JOIN movie_checker.genres g ON (md.genre_mask & (CAST(1 AS BIGINT) << g.id)) <> 0
+            GROUP BY um.user_id, g.name;
+
+            INSERT INTO movie_checker.user_movies_monthly_stats (user_id, month, movies_count)
+            SELECT user_id, CAST(date_trunc('month', added_at) AS DATE), COUNT(*)
+            FROM movie_checker.user_movies
+            WHERE added_at IS NOT NULL
+            GROUP BY user_id, CAST(date_trunc('month', added_at) AS DATE);
+            """);
+
+        statements.put("movie_popularity", """
+            TRUNCATE movie_checker.movie_popularity;
+
+            INSERT INTO movie_checker.movie_popularity
+                (movie_details_id, watched_count, favorite_count, rated_count, user_rate_sum)
+            SELECT
+                movie_details_id,
+                COUNT(*) FILTER (WHERE status = 'WATCHED'),
+                COUNT(*) FILTER (WHERE is_favorite),
+                COUNT(user_rate),
+                COALESCE(SUM(user_rate), 0)
+            FROM movie_checker.user_movies
+            GROUP BY movie_details_id;
+            """);
+
+        statements.put("movie_facet_summary", "REFRESH MATERIALIZED VIEW movie_checker.movie_facet_summary;");
+        statements.put("analyze", "ANALYZE;");
+
+        for (Map.Entry<String, String> entry : statements.entrySet()) {
+            long started = System.nanoTime();
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(entry.getValue());
+            }
+
+            log("Rebuilt %s in %.1fs", entry.getKey(), (System.nanoTime() - started) / 1_000_000_000.0);
+        }
+    }
+
+    private Map<String, Integer> registerGenres(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO movie_checker.genres (id, name)
+                SELECT COALESCE(MAX(id) + 1, 0), ? FROM movie_checker.genres
+                HAVING COALESCE(MAX(id) + 1, 0) < 63
+                ON CONFLICT DO NOTHING""")) {
+            for (String genre : GENRES) {
+                insert.setString(1, genre);
+                insert.executeUpdate();
+            }
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT id, name FROM movie_checker.genres")) {
+            while (rows.next()) {
+                ids.put(rows.getString("name"), rows.getInt("id"));
+            }
+        }
+
+        for (String genre : GENRES) {
+            if (!ids.containsKey(genre)) {
+                throw new IllegalStateException("Genre dictionary is full, could not register " + genre);
+            }
+        }
+
+        return ids;
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM movie_checker." + table)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private void runTasks(String name, int total, int perTask, RangeTask task) throws Exception {
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(options.threads())) {
+            for (int from = 0; from < total; from += perTask) {
+                int start = from;
+                int end = Math.min(total, from + perTask);
+
+                futures.add(executor.submit(() -> {
+                    task.run(start, end);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        log("Copied %s in %.1fs", name, (System.nanoTime() - started) / 1_000_000_000.0);
+    }
+
+    private void copy(String sql, RowWriter rows) throws Exception {
+        try (Connection connection = connect()) {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, 1 << 20);
+
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), 1 << 16)) {
+                rows.write(out);
+            }
+        }
+    }
+
+    private static void csv(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+
+            Object value = values[i];
+
+            if (value instanceof String text) {
+                out.write('"');
+                out.write(text.replace("\"", "\"\""));
+                out.write('"');
+            } else if (value != null) {
+                out.write(value.toString());
+            }
+        }
+
+        out.write('\n');
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(options.url(), options.user(), options.password());
+    }
+
+    // One generator per row keyed by (stream, id), so output doesn't depend on thread scheduling.
+    private SplittableRandom rowRandom(int stream, long id) {
+        return new SplittableRandom(options.seed() * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + id);
+    }
+
+    // Bijection of 0..n-1, used to scatter popularity ranks over ids.
+    private static int permute(int index, int n, int step) {
+        return (int) (((long) index * step + 7919) % n);
+    }
+
+    private static int coprimeStep(int n) {
+        int step = (int) (n * 0.618) | 1;
+
+        while (gcd(step, n) != 1) {
+            step += 2;
+        }
+
+        return step;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf(format + "%n", args);
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer out) throws Exception;
+    }
+
+    record Options(
+        String url,
+        String user,
+        String password,
+        double scale,
+        long seed,
+        int threads
+    ) {
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+                }
+
+                int eq = arg.indexOf('=');
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+
+            if (!values.containsKey("url")) {
+                throw new IllegalArgumentException("--url is required, e.g. --url=jdbc:postgresql://localhost:5432/bench");
+            }
+
+            return new Options(
+                values.get("url"),
+                values.getOrDefault("user", "postgres"),
+                values.getOrDefault("password", ""),
+                Double.parseDouble(values.getOrDefault("scale", "1")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())))
+            );
+        }
+
+        int movies() {
+            return (int) Math.round(MOVIES_PER_SCALE * scale);
+        }
+
+        int users() {
+            return (int) Math.round(USERS_PER_SCALE * scale);
+        }
+
+        long userMovies() {
+            return Math.round(USER_MOVIES_PER_SCALE * scale);
+        }
+    }
+}
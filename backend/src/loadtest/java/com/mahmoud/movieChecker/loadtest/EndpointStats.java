@@ -0,0 +1,69 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and error count for one endpoint. Samples are kept raw so the
+ * report can show exact high percentiles instead of bucket estimates.
+ */
+class EndpointStats {
+    private final String name;
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+    private long errors;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long latencyNanos, boolean error) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+
+        latenciesNanos[count++] = latencyNanos;
+
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized Summary summarize(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+
+        return new Summary(
+            name,
+            count,
+            errors,
+            count / elapsedSeconds,
+            count == 0 ? 0.0 : (double) errors / count,
+            percentileMillis(sorted, 0.50),
+            percentileMillis(sorted, 0.99),
+            percentileMillis(sorted, 0.999),
+            sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0
+        );
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    record Summary(
+        String endpoint,
+        long requests,
+        long errors,
+        double throughput,
+        double errorRate,
+        double p50Millis,
+        double p99Millis,
+        double p999Millis,
+        double maxMillis
+    ) {}
+}
@@ -0,0 +1,245 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Closed-loop load generator: every virtual user logs in once, then keeps
+ * picking an operation from the weighted mix until the run ends. Like a well
+ * behaved client, a user waits out the Retry-After of a 429 or 503.
+ */
+class LoadGenerator {
+    private static final String[] SEARCH_WORDS = {
+        "star", "love", "night", "war", "dark", "city", "king", "blood", "last", "ghost",
+        "space", "river", "storm", "dream", "shadow", "fire", "ocean", "winter", "secret", "road"
+    };
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final LoadTestOptions options;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    LoadGenerator(String baseUrl, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.options = options;
+
+        for (String endpoint : List.of("search", "suggest", "login", "status", "favorite", "rate")) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+
+        if (options.streamSearch()) {
+            stats.put("search_first", new EndpointStats("search_first"));
+        }
+    }
+
+    List<EndpointStats.Summary> run(List<String> emails, String password) throws InterruptedException {
+        long deadline = System.nanoTime() + options.duration().toNanos();
+        long started = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                String email = emails.get(i % emails.size());
+                executor.submit(() -> runUser(email, password, deadline));
+            }
+        }
+
+        double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        List<EndpointStats.Summary> summaries = new ArrayList<>();
+
+        for (EndpointStats endpointStats : stats.values()) {
+            summaries.add(endpointStats.summarize(elapsedSeconds));
+        }
+
+        return summaries;
+    }
+
+    private void runUser(String email, String password, long deadline) {
+        String token = login(email, password);
+        List<String> watched = new ArrayList<>();
+
+        while (System.nanoTime() < deadline) {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+
+            if (token == null || roll < options.loginPercent()) {
+                token = login(email, password);
+            } else if ((roll -= options.loginPercent()) < options.searchPercent()) {
+                if (options.streamSearch()) {
+                    stream("search", "/movies/search/stream?q=" + encode(randomWord()), token);
+                } else {
+                    get("search", "/movies/search?q=" + encode(randomWord()), token);
+                }
+            } else if ((roll -= options.searchPercent()) < options.suggestPercent()) {
+                String word = randomWord();
+                get("suggest", "/movies/search/suggest?q=" + encode(word.substring(0, 2 + ThreadLocalRandom.current().nextInt(word.length() - 1))), token);
+            } else if ((roll -= options.suggestPercent()) < options.favoritePercent()) {
+                patch("favorite", "/user-movies/favorite",
+                    "{\"title\":\"" + randomTitle() + "\",\"isFavorite\":" + ThreadLocalRandom.current().nextBoolean() + "}", token);
+            } else if (watched.isEmpty() || ThreadLocalRandom.current().nextBoolean()) {
+                String title = randomTitle();
+                String status = ThreadLocalRandom.current().nextInt(3) == 0 ? "WATCH_LIST" : "WATCHED";
+
+                if (patch("status", "/user-movies/status", "{\"title\":\"" + title + "\",\"status\":\"" + status + "\"}", token)
+                        && status.equals("WATCHED")) {
+                    watched.add(title);
+                }
+            } else {
+                String title = watched.get(ThreadLocalRandom.current().nextInt(watched.size()));
+                patch("rate", "/user-movies/user-rate",
+                    "{\"title\":\"" + title + "\",\"rate\":" + ThreadLocalRandom.current().nextInt(11) + ".0}", token);
+            }
+        }
+    }
+
+    private String login(String email, String password) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .timeout(options.requestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .build();
+
+        HttpResponse<String> response = send("login", request);
+
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+
+        Matcher matcher = TOKEN.matcher(response.body());
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private void get(String endpoint, String path, String token) {
+        send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(options.requestTimeout())
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build());
+    }
+
+    // Records the time to the first event as <endpoint>_first, and the whole stream as <endpoint>.
+    private void stream(String endpoint, String path, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(options.requestTimeout())
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        boolean error = true;
+
+        try {
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> iterator = lines.iterator();
+                boolean first = true;
+
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+
+                    if (first && line.startsWith("event:")) {
+                        stats.get(endpoint + "_first").record(System.nanoTime() - start, false);
+                        first = false;
+                    }
+                }
+            }
+
+            error = response.statusCode() >= 400;
+            waitRetryAfter(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+        } finally {
+            stats.get(endpoint).record(System.nanoTime() - start, error);
+        }
+    }
+
+    private boolean patch(String endpoint, String path, String body, String token) {
+        HttpResponse<String> response = send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(options.requestTimeout())
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                .build());
+
+        return response != null && response.statusCode() < 300;
+    }
+
+    /**
+     * 400/404 answers for collection mutations ("status already WATCHED", ...)
+     * are expected under a random mix, so only transport failures, 401/403 and
+     * 5xx count as errors. Unhandled server exceptions surface as 403 because
+     * the /error dispatch is not permitted.
+     */
+    private HttpResponse<String> send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        } finally {
+            boolean error = response == null
+                    || response.statusCode() >= 500
+                    || response.statusCode() == 401
+                    || response.statusCode() == 403;
+            stats.get(endpoint).record(System.nanoTime() - start, error);
+            waitRetryAfter(response);
+        }
+    }
+
+    private static void waitRetryAfter(HttpResponse<?> response) {
+        if (response == null || (response.statusCode() != 429 && response.statusCode() != 503)) {
+            return;
+        }
+
+        long seconds = response.headers().firstValueAsLong("Retry-After").orElse(0);
+
+        try {
+            Thread.sleep(Duration.ofSeconds(seconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String randomWord() {
+        return SEARCH_WORDS[ThreadLocalRandom.current().nextInt(SEARCH_WORDS.length)];
+    }
+
+    private static String randomTitle() {
+        String suffix = OmdbStub.TITLE_SUFFIXES[ThreadLocalRandom.current().nextInt(OmdbStub.TITLE_SUFFIXES.length)];
+
+        return OmdbStub.capitalize(randomWord()) + " " + suffix;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,215 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import com.mahmoud.movieChecker.MovieCheckerApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the whole backend against an embedded PostgreSQL and a local OMDb
+ * stand-in, drives it with {@link LoadGenerator} and prints per-endpoint
+ * throughput, latency percentiles and error rates.
+ *
+ * <p>Run with {@code mvn -P loadtest test-compile exec:exec -Dloadtest.args="--duration=120 --concurrency=64"}.
+ * {@code --replicas=N} adds N streaming replicas that serve the read-only transactions and
+ * {@code --profiles=perf} runs with extra Spring profiles, to compare them against the defaults.
+ */
+public class LoadTestHarness {
+    static final String PASSWORD = "load-test-password";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        try (
+            EmbeddedPostgres postgres = migrate(EmbeddedPostgres.builder().start());
+            StreamingReplicas replicas = StreamingReplicas.start(postgres, options.replicas());
+            OmdbStub omdb = new OmdbStub(options.omdbLatencyMillis(), options.omdbJitterMillis(), options.omdbErrorRate());
+            ConfigurableApplicationContext context = startApplication(
+                postgres, replicas, omdb, options.profiles(),
+                // Off by default, a few load test users would otherwise only measure the limiter.
+                Map.of(
+                    "rate-limit.enabled", String.valueOf(options.rateLimit()),
+                    "concurrency-limit.enabled", String.valueOf(options.concurrencyLimit())
+                )
+            )
+        ) {
+            List<String> emails = seedUsers(context.getBean(JdbcTemplate.class), options.users());
+            String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+
+            if (!options.warmup().isZero()) {
+                System.out.println("Warming up for " + options.warmup().toSeconds() + "s...");
+                new LoadGenerator(baseUrl, options.withDuration(options.warmup())).run(emails, PASSWORD);
+            }
+
+            System.out.println("Measuring for " + options.duration().toSeconds() + "s with "
+                    + options.concurrency() + " concurrent users...");
+
+            List<EndpointStats.Summary> summaries = new LoadGenerator(baseUrl, options).run(emails, PASSWORD);
+
+            printReport(summaries);
+            printJdbcUsage(context.getBean(MeterRegistry.class));
+            printConcurrencyLimits(context.getBean(MeterRegistry.class));
+            writeReport(options, summaries);
+        }
+    }
+
+    /**
+     * The application itself does not run Flyway on startup (migrations are
+     * applied with the Maven plugin), so the schema is created here with the
+     * same settings.
+     */
+    static EmbeddedPostgres migrate(EmbeddedPostgres postgres) {
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .schemas("movie_checker")
+                .defaultSchema("movie_checker")
+                .createSchemas(true)
+                .load()
+                .migrate();
+
+        return postgres;
+    }
+
+    /**
+     * Settings are passed as command line arguments so they win over
+     * application.yaml and the active profile's datasource. Overrides replace
+     * the defaults below.
+     */
+    static ConfigurableApplicationContext startApplication(
+        EmbeddedPostgres postgres,
+        StreamingReplicas replicas,
+        OmdbStub omdb,
+        String profiles,
+        Map<String, String> overrides
+    ) {
+        Map<String, String> properties = new HashMap<>(Map.ofEntries(
+            Map.entry("spring.profiles.active", profiles.isBlank()? "loadtest" : "loadtest," + profiles),
+            Map.entry("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres")),
+            Map.entry("spring.datasource.username", "postgres"),
+            Map.entry("spring.datasource.password", "postgres"),
+            Map.entry("read-replicas.urls", String.join(",", replicas.jdbcUrls())),
+            Map.entry("spring.jpa.show-sql", "false"),
+            Map.entry("server.port", "0"),
+            Map.entry("omdb.base-url", omdb.getBaseUrl()),
+            Map.entry("OMDB_API_KEY", "load-test"),
+            Map.entry("JWT_SECRET", "load-test-secret-load-test-secret-load-test-secret-0123456789"),
+            Map.entry("GMAIL_ACCOUNT", "load-test@localhost"),
+            Map.entry("GMAIL_APP_PASSWORD", "load-test"),
+            Map.entry("APP_ADMIN_NAME", ""),
+            Map.entry("APP_ADMIN_EMAIL", ""),
+            Map.entry("APP_ADMIN_PASSWORD", ""),
+            Map.entry("logging.level.root", "WARN")
+        ));
+        properties.putAll(overrides);
+
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+
+        // main() names the generated initializer when run with -Dspring.aot.enabled=true.
+        return new SpringApplicationBuilder(MovieCheckerApplication.class)
+                .main(MovieCheckerApplication.class)
+                .applicationStartup(new BufferingApplicationStartup(MovieCheckerApplication.STARTUP_EVENTS))
+                .run(args);
+    }
+
+    static List<String> seedUsers(JdbcTemplate jdbcTemplate, int count) {
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        List<Object[]> rows = new ArrayList<>(count);
+        List<String> emails = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String email = "load-user-" + i + "@example.com";
+
+            emails.add(email);
+            rows.add(new Object[] {"Load User " + i, email, passwordHash});
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO movie_checker.users (name, email, role, password, enabled, join_date)
+                VALUES (?, ?, 'USER', ?, TRUE, CURRENT_DATE)
+                ON CONFLICT (email) DO NOTHING
+                """, rows);
+
+        return emails;
+    }
+
+    private static void printReport(List<EndpointStats.Summary> summaries) {
+        System.out.printf("%n%-12s %10s %10s %10s %9s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "ok/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+        for (EndpointStats.Summary summary : summaries) {
+            System.out.printf("%-12s %10d %10.1f %10.1f %8.2f%% %10.2f %10.2f %10.2f %10.2f%n",
+                    summary.endpoint(), summary.requests(), summary.throughput(),
+                    summary.throughput() * (1 - summary.errorRate()), summary.errorRate() * 100,
+                    summary.p50Millis(), summary.p99Millis(), summary.p999Millis(), summary.maxMillis());
+        }
+    }
+
+    // Only the routing setup names its pools, a single pool shows up under Hikari's default name.
+    private static void printJdbcUsage(MeterRegistry meterRegistry) {
+        System.out.println();
+
+        for (Timer acquire : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            System.out.printf("pool %-12s %10d connections acquired, mean wait %.3f ms%n",
+                    acquire.getId().getTag("pool"), acquire.count(), acquire.mean(TimeUnit.MILLISECONDS));
+        }
+
+        for (Timer execute : meterRegistry.find("moviechecker.jdbc.execute").timers()) {
+            System.out.printf("jdbc %-12s %10d executions, mean %.3f ms%n",
+                    execute.getId().getTag("kind"), execute.count(), execute.mean(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void printConcurrencyLimits(MeterRegistry meterRegistry) {
+        System.out.println();
+
+        for (Gauge limit : meterRegistry.find("moviechecker.concurrency.limit").gauges()) {
+            String group = limit.getId().getTag("group");
+            Gauge inFlight = meterRegistry.find("moviechecker.concurrency.inflight").tag("group", group).gauge();
+            Counter shed = meterRegistry.find("moviechecker.concurrency.requests").tags("group", group, "result", "shed").counter();
+
+            // Anything still in flight once the generator has stopped is a leaked slot.
+            System.out.printf("limit %-11s %10.0f final limit, %4.0f in flight, %10.0f shed%n",
+                    group, limit.value(), inFlight.value(), shed == null ? 0.0 : shed.count());
+        }
+    }
+
+    private static void writeReport(LoadTestOptions options, List<EndpointStats.Summary> summaries) {
+        File report = new File(options.report());
+
+        if (report.getParentFile() != null) {
+            report.getParentFile().mkdirs();
+        }
+
+        JsonMapper.builder().build()
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(report, Map.of(
+                    "durationSeconds", options.duration().toSeconds(),
+                    "concurrency", options.concurrency(),
+                    "omdbLatencyMillis", options.omdbLatencyMillis(),
+                    "omdbJitterMillis", options.omdbJitterMillis(),
+                    "omdbErrorRate", options.omdbErrorRate(),
+                    "endpoints", summaries
+                ));
+
+        System.out.println("\nReport written to " + report.getAbsolutePath());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. The percentages of the
+ * mix apply in order; whatever is left goes to status changes and ratings.
+ */
+record LoadTestOptions(
+    Duration duration,
+    Duration warmup,
+    Duration requestTimeout,
+    int concurrency,
+    int users,
+    int replicas,
+    String profiles,
+    long omdbLatencyMillis,
+    long omdbJitterMillis,
+    double omdbErrorRate,
+    int loginPercent,
+    int searchPercent,
+    int suggestPercent,
+    int favoritePercent,
+    boolean streamSearch,
+    boolean rateLimit,
+    boolean concurrencyLimit,
+    String report
+) {
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+            Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+            Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+            Duration.ofMillis(Long.parseLong(values.getOrDefault("request-timeout", "10000"))),
+            Integer.parseInt(values.getOrDefault("concurrency", "32")),
+            Integer.parseInt(values.getOrDefault("users", "100")),
+            Integer.parseInt(values.getOrDefault("replicas", "0")),
+            values.getOrDefault("profiles", ""),
+            Long.parseLong(values.getOrDefault("omdb-latency", "80")),
+            Long.parseLong(values.getOrDefault("omdb-jitter", "40")),
+            Double.parseDouble(values.getOrDefault("omdb-error-rate", "0.01")),
+            Integer.parseInt(values.getOrDefault("login", "5")),
+            Integer.parseInt(values.getOrDefault("search", "40")),
+            Integer.parseInt(values.getOrDefault("suggest", "30")),
+            Integer.parseInt(values.getOrDefault("favorite", "10")),
+            Boolean.parseBoolean(values.getOrDefault("stream-search", "false")),
+            Boolean.parseBoolean(values.getOrDefault("rate-limit", "false")),
+            Boolean.parseBoolean(values.getOrDefault("concurrency-limit", "true")),
+            values.getOrDefault("report", "target/loadtest-report.json")
+        );
+
+        if (options.loginPercent + options.searchPercent + options.suggestPercent + options.favoritePercent > 100) {
+            throw new IllegalArgumentException("The request mix adds up to more than 100%.");
+        }
+
+        return options;
+    }
+
+    LoadTestOptions withDuration(Duration duration) {
+        return new LoadTestOptions(
+            duration, warmup, requestTimeout, concurrency, users, replicas, profiles,
+            omdbLatencyMillis, omdbJitterMillis, omdbErrorRate,
+            loginPercent, searchPercent, suggestPercent, favoritePercent, streamSearch, rateLimit, concurrencyLimit, report
+        );
+    }
+}
@@ -0,0 +1,245 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for omdbapi.com. Answers the calls the backend makes,
+ * {@code ?s=} (search titles), {@code ?t=} (movie details) and {@code ?i=}
+ * (details by an IMDb id it handed out before), with deterministic data
+ * derived from the query, after a configurable delay and
+ * with a configurable share of HTTP 500 responses. It also stands in for the
+ * poster image host, the details point at {@code /posters/<imdbId>.png}.
+ */
+public class OmdbStub implements AutoCloseable {
+    static final String[] TITLE_SUFFIXES = {
+        "Rising", "Returns", "Forever", "Unleashed", "Legacy",
+        "Origins", "Reloaded", "Awakening", "Redemption", "Chronicles"
+    };
+
+    private static final String[] GENRES = {
+        "Action", "Adventure", "Comedy", "Drama", "Horror",
+        "Romance", "Sci-Fi", "Thriller", "Animation", "Crime"
+    };
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+
+    // Titles by the IMDb ids handed out so far, for ?i= lookups.
+    private final Map<String, String> titlesById = new ConcurrentHashMap<>();
+
+    public OmdbStub(long latencyMillis, long jitterMillis, double errorRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.createContext("/posters/", this::handlePoster);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                respond(exchange, 500, "{\"Response\":\"False\",\"Error\":\"Injected failure\"}");
+                return;
+            }
+
+            Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+
+            if (params.containsKey("s")) {
+                respond(exchange, 200, searchResponse(params.get("s")));
+            } else if (params.containsKey("t")) {
+                respond(exchange, 200, detailsResponse(params.get("t"), getBaseUrl()));
+            } else if (titlesById.containsKey(params.getOrDefault("i", ""))) {
+                respond(exchange, 200, detailsResponse(titlesById.get(params.get("i")), getBaseUrl()));
+            } else {
+                respond(exchange, 200, "{\"Response\":\"False\",\"Error\":\"Incorrect IMDb ID.\"}");
+            }
+        }
+    }
+
+    private void handlePoster(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            simulateLatency();
+
+            String name = exchange.getRequestURI().getPath().substring("/posters/".length());
+            byte[] image = posterImage(name.hashCode());
+
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, image.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(image);
+            }
+        }
+    }
+
+    // A 300x450 poster with a gradient seeded from the name, so every movie gets its own image.
+    static byte[] posterImage(int seed) throws IOException {
+        BufferedImage image = new BufferedImage(300, 450, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(seed);
+        int from = random.nextInt(0xFFFFFF);
+        int to = random.nextInt(0xFFFFFF);
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            int rgb = blend(from, to, y / (double) image.getHeight());
+
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, rgb ^ (random.nextInt(8) * 0x010101));
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        return png.toByteArray();
+    }
+
+    private static int blend(int from, int to, double ratio) {
+        int rgb = 0;
+
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int a = (from >> shift) & 0xFF;
+            int b = (to >> shift) & 0xFF;
+
+            rgb |= ((int) (a + (b - a) * ratio) & 0xFF) << shift;
+        }
+
+        return rgb;
+    }
+
+    private void simulateLatency() {
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+
+        if (delay <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String searchResponse(String q) {
+        String base = capitalize(q.trim());
+        StringBuilder json = new StringBuilder("{\"Search\":[");
+
+        for (int i = 0; i < TITLE_SUFFIXES.length; i++) {
+            String title = base + " " + TITLE_SUFFIXES[i];
+            titlesById.put(imdbIdOf(title), title);
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append("{\"Title\":\"").append(escape(title))
+                .append("\",\"Year\":\"").append(yearOf(title))
+                .append("\",\"imdbID\":\"").append(imdbIdOf(title))
+                .append("\",\"Type\":\"movie\",\"Poster\":\"N/A\"}");
+        }
+
+        return json.append("],\"totalResults\":\"")
+                .append(TITLE_SUFFIXES.length)
+                .append("\",\"Response\":\"True\"}")
+                .toString();
+    }
+
+    private String detailsResponse(String t, String baseUrl) {
+        String title = t.trim();
+        titlesById.put(imdbIdOf(title), title);
+        int hash = title.toLowerCase().hashCode() & Integer.MAX_VALUE;
+        String genre = GENRES[hash % GENRES.length] + ", " + GENRES[(hash / GENRES.length) % GENRES.length];
+
+        return "{\"Title\":\"" + escape(title) + "\","
+                + "\"Year\":\"" + yearOf(title) + "\","
+                + "\"Runtime\":\"" + (80 + hash % 70) + " min\","
+                + "\"Genre\":\"" + genre + "\","
+                + "\"Plot\":\"Synthetic plot for " + escape(title) + ".\","
+                + "\"Poster\":\"" + baseUrl + "posters/" + imdbIdOf(title) + ".png\","
+                + "\"imdbRating\":\"" + (hash % 90 + 10) / 10.0 + "\","
+                + "\"imdbID\":\"" + imdbIdOf(title) + "\","
+                + "\"Type\":\"movie\","
+                + "\"Response\":\"True\"}";
+    }
+
+    private static String imdbIdOf(String title) {
+        return String.format("tt%08d", (title.toLowerCase().hashCode() & Integer.MAX_VALUE) % 100_000_000);
+    }
+
+    private static int yearOf(String title) {
+        return 1970 + (title.toLowerCase().hashCode() & Integer.MAX_VALUE) % 55;
+    }
+
+    static String capitalize(String word) {
+        return word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+
+        if (rawQuery == null) {
+            return params;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+
+            if (eq > 0) {
+                params.put(
+                    URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8)
+                );
+            }
+        }
+
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
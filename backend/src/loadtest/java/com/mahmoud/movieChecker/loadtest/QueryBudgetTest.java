@@ -0,0 +1,163 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import com.mahmoud.movieChecker.filter.QueryBudgetFilter;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls the endpoints that have a {@link com.mahmoud.movieChecker.monitoring.QueryBudget}
+ * against an embedded PostgreSQL with query-budget.mode=FAIL, so an endpoint
+ * going over its budget throws out of {@link QueryBudgetFilter} and fails
+ * the test. Each endpoint is called twice, with a cold and a warm
+ * second-level cache.
+ *
+ * <p>Run with {@code mvn -P loadtest test -Dtest=QueryBudgetTest}.
+ */
+class QueryBudgetTest {
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private static EmbeddedPostgres postgres;
+    private static StreamingReplicas replicas;
+    private static OmdbStub omdb;
+    private static ConfigurableApplicationContext context;
+    private static MockMvc mockMvc;
+    private static String token;
+    private static Cookie refreshToken;
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        postgres = LoadTestHarness.migrate(EmbeddedPostgres.builder().start());
+        replicas = StreamingReplicas.start(postgres, 0);
+        omdb = new OmdbStub(0, 0, 0);
+        context = LoadTestHarness.startApplication(postgres, replicas, omdb, "", Map.of(
+            "query-budget.mode", "FAIL",
+            "rate-limit.enabled", "false",
+            "concurrency-limit.enabled", "false"
+        ));
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean(QueryBudgetFilter.class), context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+
+        // An admin, so the user listing can be called too.
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String email = LoadTestHarness.seedUsers(jdbcTemplate, 1).getFirst();
+        jdbcTemplate.update("UPDATE movie_checker.users SET role = 'ADMIN' WHERE email = ?", email);
+
+        MockHttpServletResponse login = mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + LoadTestHarness.PASSWORD + "\"}")
+        ).andExpect(status().isOk()).andReturn().getResponse();
+
+        token = JSON.readTree(login.getContentAsString()).get("token").asString();
+        refreshToken = login.getCookie("refreshToken");
+    }
+
+    @AfterAll
+    static void stopApplication() throws Exception {
+        context.close();
+        omdb.close();
+        replicas.close();
+        postgres.close();
+    }
+
+    @Test
+    void catalogEndpointsStayWithinBudget() throws Exception {
+        // Stores the OMDb titles, so the catalog isn't empty below.
+        for (int i = 0; i < 2; i++) {
+            call(get("/movies/search").param("q", "star"));
+        }
+
+        JsonNode movies = json(get("/movies"));
+        assertFalse(movies.isEmpty(), "The search stored no movies");
+
+        long id = movies.get(0).get("id").asLong();
+        String posterUrl = movies.get(0).get("posterUrl").asString();
+        String poster = posterUrl.substring(posterUrl.indexOf("/movies/posters/"));
+
+        for (int i = 0; i < 2; i++) {
+            call(get("/movies"));
+            call(get("/movies/browse").param("yearFrom", "1900").param("limit", "2"));
+            call(get("/movies/genres"));
+            call(get("/movies/search/suggest").param("q", "st"));
+            call(get("/movies/leaderboards/most-watched"));
+            call(get("/movies/leaderboards/most-favorited"));
+            call(get("/movies/leaderboards/top-rated"));
+            call(get("/movies/" + id + "/similar"));
+            call(get(poster));
+        }
+    }
+
+    @Test
+    void collectionEndpointsStayWithinBudget() throws Exception {
+        call(get("/movies/search").param("q", "moon"));
+
+        List<String> titles = json(get("/movies")).valueStream().map(movie -> movie.get("title").asString()).toList();
+        String title = titles.getFirst();
+
+        call(patch("/user-movies/status").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\",\"status\":\"WATCHED\"}"));
+        call(patch("/user-movies/user-rate").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + title + "\",\"rate\":7.0}"));
+        call(patch("/user-movies/favorite").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"" + titles.getLast() + "\",\"isFavorite\":true}"));
+
+        for (int i = 0; i < 2; i++) {
+            call(get("/user-movies"));
+            call(get("/user-movies/stats"));
+        }
+    }
+
+    @Test
+    void userEndpointsStayWithinBudget() throws Exception {
+        long id = json(get("/auth/me")).get("id").asLong();
+
+        call(patch("/users/change-name").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Budget Admin\"}"));
+        call(post("/auth/refresh").cookie(refreshToken));
+
+        for (int i = 0; i < 2; i++) {
+            call(get("/auth/me"));
+            call(get("/users/" + id));
+            call(get("/users").param("limit", "10"));
+        }
+    }
+
+    // Over budget, the filter throws and perform() with it.
+    private static void call(MockHttpServletRequestBuilder request) throws Exception {
+        mockMvc.perform(authenticated(request)).andExpect(status().is2xxSuccessful());
+    }
+
+    private static JsonNode json(MockHttpServletRequestBuilder request) throws Exception {
+        return JSON.readTree(mockMvc.perform(authenticated(request))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    // Until the login in startApplication() returned a token.
+    private static MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+        return (token == null)? request : request.header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,277 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.mahmoud.movieChecker.repository.UserMoviesRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) for the native search and
+ * collection queries against a generated dataset and fails when they stop
+ * using their indexes or read more buffers than expected.
+ *
+ * <p>All checks are on the plan the planner picks. The generated titles come
+ * from a small vocabulary, so a search for one of its words matches a large
+ * share of the 20k movies and is rightly a sequential scan; the searches use
+ * a word as rare as most real searches instead, the id suffix some generated
+ * titles end with.
+ *
+ * <p>Run with {@code mvn -P loadtest test -Dtest=QueryPlanRegressionTest}.
+ */
+class QueryPlanRegressionTest {
+    private static final double DATASET_SCALE = 0.1;
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+    // MovieDetails' @BatchSize.
+    private static final int MOVIE_BATCH_SIZE = 256;
+
+    private static EmbeddedPostgres postgres;
+    private static long sampleUserId;
+    private static Long[] sampleUserMovieIds;
+    private static String rareTitleWord;
+
+    @BeforeAll
+    static void loadDataset() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .schemas("movie_checker")
+                .defaultSchema("movie_checker")
+                .createSchemas(true)
+                .load()
+                .migrate();
+
+        new DatasetGenerator(DatasetGenerator.Options.parse(new String[] {
+            "--url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--user=postgres",
+            "--scale=" + DATASET_SCALE,
+            "--seed=42"
+        })).generate();
+
+        // A user with a typical (median) collection size.
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                 SELECT user_id FROM movie_checker.user_movies_stats
+                 ORDER BY watched_count + watch_list_count
+                 OFFSET (SELECT COUNT(*) / 2 FROM movie_checker.user_movies_stats) LIMIT 1""");
+             ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            sampleUserId = rows.getLong(1);
+        }
+
+        // The movies of the first batch Hibernate loads for that collection.
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                 SELECT movie_details_id FROM movie_checker.user_movies WHERE user_id = ? LIMIT ?""")) {
+            statement.setLong(1, sampleUserId);
+            statement.setInt(2, MOVIE_BATCH_SIZE);
+
+            List<Long> movieIds = new ArrayList<>();
+
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    movieIds.add(rows.getLong(1));
+                }
+            }
+
+            sampleUserMovieIds = movieIds.toArray(Long[]::new);
+        }
+
+        // The id suffix some generated titles end with, a word as rare as the ones most real searches are for.
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement("""
+                 SELECT word FROM (
+                     SELECT id, substring(title FROM ' ([0-9a-z]+)$') AS word FROM movie_checker.movie_details
+                 ) words
+                 WHERE length(word) >= 3 AND word ~ '[0-9]' AND word ~ '[a-z]'
+                 ORDER BY id LIMIT 1""");
+             ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            rareTitleWord = rows.getString(1);
+        }
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void searchUsesTrigramAndFullTextIndexes() throws Exception {
+        String sql = nativeQuery(MovieDetailsRepository.class, "search");
+        Map<String, Object> parameters = Map.of("q", rareTitleWord, "genreMask", 0L);
+
+        Plan plan = explain(sql, parameters);
+        plan.assertUsesIndexes("idx_movie_title_trgm", "idx_movie_search_vector");
+        plan.assertNoSeqScanOn("movie_details");
+        plan.assertSharedBuffersAtMost(2_000);
+    }
+
+    @Test
+    void searchWithGenreFilterUsesTrigramAndFullTextIndexes() throws Exception {
+        String sql = nativeQuery(MovieDetailsRepository.class, "search");
+        Map<String, Object> parameters = Map.of("q", rareTitleWord, "genreMask", 1L);
+
+        Plan plan = explain(sql, parameters);
+        plan.assertUsesIndexes("idx_movie_title_trgm", "idx_movie_search_vector");
+        plan.assertNoSeqScanOn("movie_details");
+        plan.assertSharedBuffersAtMost(2_000);
+    }
+
+    @Test
+    void suggestUsesLowerTitlePrefixIndex() throws Exception {
+        Plan plan = explain(nativeQuery(MovieDetailsRepository.class, "suggest"), Map.of("q", "Silent Ri"));
+
+        plan.assertUsesIndexes("idx_movie_title_lower_prefix");
+        plan.assertNoSeqScanOn("movie_details");
+        plan.assertSharedBuffersAtMost(300);
+    }
+
+    @Test
+    void collectionLookupUsesUserIdIndex() throws Exception {
+        // Same shape as the SQL Hibernate generates for UserMoviesRepository.findAllByUser, which
+        // reads user_movies alone and leaves the movies to the batch load below.
+        Plan plan = explain("""
+                SELECT um.* FROM movie_checker.user_movies um
+                WHERE um.user_id = :userId""", Map.of("userId", sampleUserId));
+
+        plan.assertUsesIndexes("idx_t_user_movies_user_id");
+        plan.assertNoSeqScanOn("user_movies");
+        plan.assertSharedBuffersAtMost(300);
+    }
+
+    @Test
+    void collectionMoviesBatchLoadUsesPrimaryKey() throws Exception {
+        // Same shape as the @BatchSize load of the collection's movies, which Hibernate sends to
+        // PostgreSQL as one array parameter rather than an IN list.
+        Plan plan = explain("""
+                SELECT md.* FROM movie_checker.movie_details md
+                WHERE md.id = ANY(:ids)""", Map.of("ids", sampleUserMovieIds));
+
+        plan.assertUsesIndexes("movie_details_pkey");
+        plan.assertNoSeqScanOn("movie_details");
+        plan.assertSharedBuffersAtMost(1_000);
+    }
+
+    @Test
+    void collectionChunkDeleteUsesUserIdIndex() throws Exception {
+        Plan plan = explain(
+            nativeQuery(UserMoviesRepository.class, "deleteChunkByUserId"),
+            Map.of("userId", sampleUserId, "limit", 5000)
+        );
+
+        plan.assertUsesIndexes("idx_t_user_movies_user_id");
+        plan.assertNoSeqScanOn("user_movies");
+    }
+
+    private static String nativeQuery(Class<?> repository, String methodName) {
+        Method method = Arrays.stream(repository.getMethods())
+                .filter(candidate -> candidate.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+
+        Query query = method.getAnnotation(Query.class);
+
+        assertTrue(query != null && query.nativeQuery(), methodName + " is not a native query");
+
+        return query.value();
+    }
+
+    // Runs inside a rolled back transaction, EXPLAIN ANALYZE executes data-modifying statements.
+    private static Plan explain(String sql, Map<String, Object> parameters) throws Exception {
+        List<String> order = new ArrayList<>();
+        Matcher matcher = NAMED_PARAMETER.matcher(sql);
+        StringBuilder positional = new StringBuilder();
+
+        while (matcher.find()) {
+            order.add(matcher.group(1));
+            matcher.appendReplacement(positional, "?");
+        }
+
+        matcher.appendTail(positional);
+
+        try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + positional)) {
+                for (int i = 0; i < order.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(order.get(i)));
+                }
+
+                try (ResultSet rows = statement.executeQuery()) {
+                    rows.next();
+                    return new Plan(JsonMapper.builder().build().readTree(rows.getString(1)).get(0).get("Plan"));
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private record Plan(JsonNode root) {
+        void assertUsesIndexes(String... expected) {
+            // Only scans with an index condition count, a full index scan is a sequential scan in disguise.
+            Set<String> used = new LinkedHashSet<>();
+            collect(root, node -> {
+                if (node.has("Index Name") && node.has("Index Cond")) {
+                    used.add(node.get("Index Name").asString());
+                }
+            });
+
+            for (String index : expected) {
+                assertTrue(used.contains(index), "Expected " + index + " in plan, used " + used + "\n" + root.toPrettyString());
+            }
+        }
+
+        void assertNoSeqScanOn(String relation) {
+            List<String> scans = new ArrayList<>();
+            collect(root, node -> {
+                if (node.path("Node Type").asString().equals("Seq Scan")
+                        && node.path("Relation Name").asString().equals(relation)) {
+                    scans.add(relation);
+                }
+            });
+
+            assertTrue(scans.isEmpty(), "Sequential scan on " + relation + "\n" + root.toPrettyString());
+        }
+
+        void assertSharedBuffersAtMost(long limit) {
+            long buffers = root.path("Shared Hit Blocks").asLong() + root.path("Shared Read Blocks").asLong();
+
+            assertTrue(buffers <= limit, "Plan touched " + buffers + " shared buffers, limit " + limit + "\n" + root.toPrettyString());
+        }
+
+        private static void collect(JsonNode node, java.util.function.Consumer<JsonNode> visitor) {
+            visitor.accept(node);
+
+            for (JsonNode child : node.path("Plans")) {
+                collect(child, visitor);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import com.mahmoud.movieChecker.entity.Role;
+import com.mahmoud.movieChecker.monitoring.StartupReport;
+import com.mahmoud.movieChecker.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the whole backend against an embedded PostgreSQL and fails when it
+ * takes longer than the startup budget to become ready. New instances are
+ * started on traffic spikes, so this is time the spike goes unserved.
+ *
+ * <p>The admin account is created on startup, with mail going to an SMTP
+ * server that accepts connections and never answers: sending the admin email
+ * before readiness would cost the whole mail timeout.
+ *
+ * <p>Run with {@code mvn -P loadtest test -Dtest=StartupBudgetTest}
+ * ({@code -Dstartup.budget=PT20S} to tighten it on a faster machine). The
+ * default leaves room for a single core, where startup takes about 24s.
+ */
+class StartupBudgetTest {
+    private static final Duration BUDGET = Duration.parse(System.getProperty("startup.budget", "PT30S"));
+
+    @Test
+    void readyWithinBudget() throws Exception {
+        try (
+            EmbeddedPostgres postgres = LoadTestHarness.migrate(EmbeddedPostgres.builder().start());
+            StreamingReplicas replicas = StreamingReplicas.start(postgres, 0);
+            OmdbStub omdb = new OmdbStub(0, 0, 0);
+            ServerSocket smtp = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            ConfigurableApplicationContext context = LoadTestHarness.startApplication(postgres, replicas, omdb, "", Map.of(
+                "APP_ADMIN_NAME", "Startup Admin",
+                "APP_ADMIN_EMAIL", "admin@example.com",
+                "APP_ADMIN_PASSWORD", "startup-admin-password",
+                "spring.mail.host", "127.0.0.1",
+                "spring.mail.port", String.valueOf(smtp.getLocalPort())
+            ))
+        ) {
+            Duration ready = Duration.ofMillis((long) context.getBean(MeterRegistry.class)
+                    .get("application.ready.time").timeGauge().value(TimeUnit.MILLISECONDS));
+
+            System.out.println("Ready in " + ready.toMillis() + " ms (budget " + BUDGET.toMillis() + " ms), slowest beans:");
+
+            for (StartupReport.BeanTiming timing : context.getBean(StartupReport.class).slowestBeans(10)) {
+                System.out.printf("  %-60s %6d ms %6d ms%n", timing.bean(), timing.self().toMillis(), timing.total().toMillis());
+            }
+
+            assertTrue(context.getBean(UserRepository.class).existsByRole(Role.ADMIN), "Admin wasn't created on startup");
+            assertTrue(ready.compareTo(BUDGET) <= 0, "Ready in " + ready.toMillis() + " ms, budget " + BUDGET.toMillis() + " ms");
+        }
+    }
+}
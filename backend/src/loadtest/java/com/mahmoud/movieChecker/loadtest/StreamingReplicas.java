@@ -0,0 +1,144 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hot standbys of an embedded PostgreSQL, fed by streaming replication.
+ *
+ * <p>The embedded binaries don't include pg_basebackup, so each replica is an
+ * online file copy of the primary's data directory taken between
+ * pg_start_backup and pg_stop_backup, started with standby.signal and a
+ * physical replication slot that keeps the WAL it still needs.
+ */
+final class StreamingReplicas implements AutoCloseable {
+    // Runtime state of the primary that must not end up in a standby's data directory.
+    private static final Set<String> SKIPPED = Set.of("postmaster.pid", "postmaster.opts", "epg-lock");
+    private static final Set<String> EMPTIED = Set.of("pg_wal", "pg_replslot", "pg_stat_tmp");
+
+    private final List<EmbeddedPostgres> replicas = new ArrayList<>();
+    private final List<Path> dataDirectories = new ArrayList<>();
+
+    private StreamingReplicas() {
+    }
+
+    static StreamingReplicas start(EmbeddedPostgres primary, int count) throws Exception {
+        StreamingReplicas replicas = new StreamingReplicas();
+
+        try {
+            for (int i = 1; i <= count; i++) {
+                replicas.add(primary, "replica_" + i);
+            }
+        } catch (Exception e) {
+            replicas.close();
+            throw e;
+        }
+
+        return replicas;
+    }
+
+    List<String> jdbcUrls() {
+        return replicas.stream()
+                .map(replica -> replica.getJdbcUrl("postgres", "postgres"))
+                .toList();
+    }
+
+    private void add(EmbeddedPostgres primary, String slot) throws Exception {
+        Path dataDirectory = Files.createTempDirectory("loadtest-" + slot);
+        dataDirectories.add(dataDirectory);
+
+        try (Connection connection = primary.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            Path primaryDataDirectory;
+
+            try (ResultSet rows = statement.executeQuery("SHOW data_directory")) {
+                rows.next();
+                primaryDataDirectory = Path.of(rows.getString(1));
+            }
+
+            statement.execute("SELECT pg_create_physical_replication_slot('" + slot + "', true)");
+            statement.execute("SELECT pg_start_backup('" + slot + "', true, false)");
+
+            copy(primaryDataDirectory, dataDirectory);
+
+            try (ResultSet rows = statement.executeQuery("SELECT labelfile FROM pg_stop_backup(false, false)")) {
+                rows.next();
+                Files.writeString(dataDirectory.resolve("backup_label"), rows.getString(1));
+            }
+        }
+
+        Files.createFile(dataDirectory.resolve("standby.signal"));
+
+        // Written to the config file, the embedded launcher would split the conninfo on its spaces.
+        Files.writeString(dataDirectory.resolve("postgresql.auto.conf"), String.join("\n",
+            "primary_conninfo = 'host=localhost port=" + primary.getPort() + " user=postgres'",
+            "primary_slot_name = '" + slot + "'",
+            "hot_standby = on",
+            ""
+        ));
+
+        replicas.add(EmbeddedPostgres.builder()
+                .setDataDirectory(dataDirectory)
+                .setCleanDataDirectory(false)
+                .start());
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(directory).toString()));
+
+                return (EMPTIED.contains(directory.getFileName().toString()) && !directory.equals(source))?
+                        FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (!SKIPPED.contains(file.getFileName().toString())) {
+                    try {
+                        Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.COPY_ATTRIBUTES);
+                    } catch (NoSuchFileException ignored) {
+                        // Removed by the running primary while copying, the WAL replay recreates it.
+                    }
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Files.createDirectories(target.resolve("pg_wal/archive_status"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (EmbeddedPostgres replica : replicas) {
+            replica.close();
+        }
+
+        for (Path dataDirectory : dataDirectories) {
+            try (var paths = Files.walk(dataDirectory)) {
+                paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mahmoud.movieChecker.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank k is drawn with
+ * probability proportional to {@code 1 / (k + 1)^exponent}. The cumulative
+ * table is built once and shared, sampling is a binary search.
+ */
+class ZipfDistribution {
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+
+        double sum = 0;
+
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+}
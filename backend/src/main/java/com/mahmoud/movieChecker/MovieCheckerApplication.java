@@ -2,10 +2,19 @@ package com.mahmoud.movieChecker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MovieCheckerApplication {
+    // Enough for every startup step of this application, later ones are dropped.
+    public static final int STARTUP_EVENTS = 10_000;
+
     public static void main(String[] args) {
-		SpringApplication.run(MovieCheckerApplication.class, args);
+		SpringApplication application = new SpringApplication(MovieCheckerApplication.class);
+		// Records bean initialization times for the StartupReport.
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_EVENTS));
+		application.run(args);
 	}
 }
@@ -19,6 +19,7 @@ public class AdminInitializer implements CommandLineRunner {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final DeferredStartupTasks deferredStartupTasks;
 
     @Value("${APP_ADMIN_NAME}")
     private String adminName;
@@ -62,6 +63,7 @@ public class AdminInitializer implements CommandLineRunner {
                 adminName
         );
 
-        emailService.sendEmail(adminEmail, subject, message);
+        // SMTP can take seconds, and the admin account works without the email.
+        deferredStartupTasks.defer("admin-email", () -> emailService.sendEmail(adminEmail, subject, message));
     }
 }
@@ -1,5 +1,6 @@
 package com.mahmoud.movieChecker.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
@@ -7,9 +8,9 @@ import org.springframework.web.client.RestClient;
 @Configuration
 public class AppConfig {
     @Bean
-    public RestClient restClient() {
+    public RestClient restClient(@Value("${omdb.base-url:http://www.omdbapi.com/}") String omdbBaseUrl) {
         return RestClient.builder()
-                .baseUrl("http://www.omdbapi.com/")
+                .baseUrl(omdbBaseUrl)
                 .build();
     }
 }
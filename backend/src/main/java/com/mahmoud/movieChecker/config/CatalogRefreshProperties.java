@@ -0,0 +1,31 @@
+package com.mahmoud.movieChecker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "catalog-refresh")
+@Getter
+@Setter
+public class CatalogRefreshProperties {
+    private boolean enabled = true;
+
+    // Movies whose OMDb metadata is older than this get refreshed
+    private Duration staleAfter = Duration.ofDays(30);
+
+    // Movies refreshed per run
+    private int batchSize = 20;
+
+    // Refreshed movies written per statement (and transaction) while a run goes on
+    private int writeBatchSize = 5;
+
+    // Pace of the refresh requests to OMDb
+    private double requestsPerSecond = 1;
+
+    // Stop refreshing once this many movies were fetched from OMDb today (ingest included), across instances
+    private long dailyRequestLimit = 500;
+}
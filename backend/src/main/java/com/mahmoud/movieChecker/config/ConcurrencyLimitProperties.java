@@ -0,0 +1,58 @@
+package com.mahmoud.movieChecker.config;
+
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+
+    // Latency samples are averaged over this long before the limit is adjusted
+    private Duration window = Duration.ofSeconds(1);
+
+    // Windows with fewer samples are carried over into the next one
+    private int minWindowSamples = 10;
+
+    // How much slower than the long term latency a window may be before the limit shrinks
+    private double tolerance = 1.5;
+
+    // Share of the newly computed limit taken per window
+    private double smoothing = 0.2;
+
+    // Limit multiplier for a window with failed (5xx) requests or over the group's max latency
+    private double backoffRatio = 0.9;
+
+    private Map<AdaptiveLimit.Group, Limit> groups = new EnumMap<>(Map.of(
+        AdaptiveLimit.Group.SEARCH, new Limit(20, 4, 200, Duration.ofSeconds(2)),
+        AdaptiveLimit.Group.LOGIN, new Limit(8, 2, 64, Duration.ofSeconds(1)),
+        AdaptiveLimit.Group.COLLECTION, new Limit(20, 4, 100, Duration.ofSeconds(1)),
+        AdaptiveLimit.Group.EXPORT, new Limit(2, 1, 4, Duration.ofSeconds(5))
+    ));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int initial;
+
+        private int min;
+
+        private int max;
+
+        // Average window latency above which the limit backs off however the trend looks
+        private Duration maxLatency = Duration.ofSeconds(5);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mahmoud.movieChecker.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Startup work the application doesn't need to serve requests (e.g. emails),
+ * held back until it is ready and then run on virtual threads, so it never
+ * delays readiness. A failure is logged and doesn't stop the application.
+ * Each task is timed as moviechecker.startup.deferred (task, outcome).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeferredStartupTasks {
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("startup-task-", 0).factory();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Runnable> pending = new LinkedHashMap<>();
+    private boolean ready;
+
+    // Runs the task once the application is ready, right away if it already is.
+    public synchronized void defer(String name, Runnable task) {
+        if (ready) {
+            start(name, task);
+        } else {
+            pending.put(name, task);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void runPending() {
+        ready = true;
+        pending.forEach(this::start);
+        pending.clear();
+    }
+
+    private void start(String name, Runnable task) {
+        THREADS.newThread(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+
+            try {
+                task.run();
+                outcome = "success";
+            } catch (RuntimeException e) {
+                log.warn("Deferred startup task {} failed: {}", name, e.toString());
+            } finally {
+                sample.stop(meterRegistry.timer("moviechecker.startup.deferred", "task", name, "outcome", outcome));
+            }
+        }).start();
+    }
+}
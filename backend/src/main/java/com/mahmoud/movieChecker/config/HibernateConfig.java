@@ -0,0 +1,29 @@
+package com.mahmoud.movieChecker.config;
+
+import com.mahmoud.movieChecker.monitoring.JdbcTimingListener;
+import com.mahmoud.movieChecker.monitoring.QueryCountingInspector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingCustomizer() {
+        QueryCountingInspector inspector = new QueryCountingInspector();
+
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+            properties.put(AvailableSettings.INTERCEPTOR, inspector);
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcTimingCustomizer(MeterRegistry meterRegistry) {
+        JdbcTimingListener.bindTo(meterRegistry);
+
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+    }
+}
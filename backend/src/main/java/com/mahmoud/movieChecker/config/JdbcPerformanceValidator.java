@@ -0,0 +1,67 @@
+package com.mahmoud.movieChecker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fails startup when the perf profile is overridden into a combination that
+ * silently loses its benefits, e.g. batching without ordered inserts, SQL
+ * logging left on, or a pool larger than the server accepts.
+ */
+@Component
+@Profile("perf")
+@RequiredArgsConstructor
+public class JdbcPerformanceValidator implements InitializingBean {
+    private final Environment environment;
+    private final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<String> problems = new ArrayList<>();
+
+        int batchSize = environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", Integer.class, 0);
+
+        if (batchSize < 2) {
+            problems.add("hibernate.jdbc.batch_size must be at least 2, is " + batchSize);
+        }
+
+        if (!environment.getProperty("spring.jpa.properties.hibernate.order_inserts", Boolean.class, false)
+                || !environment.getProperty("spring.jpa.properties.hibernate.order_updates", Boolean.class, false)) {
+            problems.add("hibernate.order_inserts and hibernate.order_updates must be on, or batches break up per entity");
+        }
+
+        if (environment.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+            problems.add("spring.jpa.show-sql must be off");
+        }
+
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+
+        if (!"true".equals(pool.getDataSourceProperties().getProperty("reWriteBatchedInserts"))) {
+            problems.add("the pool's reWriteBatchedInserts data source property must be true");
+        }
+
+        // Superuser slots aren't available to the application.
+        int availableConnections = new JdbcTemplate(dataSource).queryForObject("""
+                SELECT current_setting('max_connections')::int - current_setting('superuser_reserved_connections')::int""",
+                Integer.class);
+
+        if (pool.getMaximumPoolSize() > availableConnections) {
+            problems.add("maximum-pool-size " + pool.getMaximumPoolSize()
+                    + " is above the " + availableConnections + " connections the server accepts");
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid perf profile settings: " + String.join("; ", problems));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahmoud.movieChecker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "poster-cache")
+@Getter
+@Setter
+public class PosterCacheProperties {
+    // When off, the API hands out the original poster urls
+    private boolean enabled = true;
+
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "movie-checker-posters");
+
+    // Least recently served posters (with their thumbnails) are deleted beyond this
+    private DataSize maxSize = DataSize.ofMegabytes(512);
+
+    // Posters served within this aren't deleted, so responses still sending them keep their file
+    private Duration evictionGracePeriod = Duration.ofSeconds(30);
+
+    // JPEG thumbnails generated right after a poster is fetched, served with ?width=
+    private List<Integer> thumbnailWidths = new ArrayList<>();
+
+    private Duration fetchTimeout = Duration.ofSeconds(10);
+
+    // Downloads over this are aborted and the original poster url keeps being used
+    private DataSize maxDownloadSize = DataSize.ofMegabytes(10);
+}
@@ -0,0 +1,49 @@
+package com.mahmoud.movieChecker.config;
+
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // Clients tracked per endpoint class, beyond it new clients share a bucket per stripe until idle ones are evicted
+    private int maxClients = 200_000;
+
+    // Rounded up to a power of two
+    private int stripes = 64;
+
+    // How often full (idle) buckets are dropped
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    private Map<RateLimit.Endpoint, Limit> limits = new EnumMap<>(Map.of(
+        RateLimit.Endpoint.SEARCH, new Limit(20, 1),
+        RateLimit.Endpoint.SUGGEST, new Limit(40, 5),
+        RateLimit.Endpoint.CATALOG, new Limit(120, 20),
+        RateLimit.Endpoint.POSTERS, new Limit(300, 50)
+    ));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        // Requests a client may make in a burst
+        private int capacity;
+
+        // Sustained requests per second
+        private double refillPerSecond;
+    }
+}
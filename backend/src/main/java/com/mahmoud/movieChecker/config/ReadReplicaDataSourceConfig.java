@@ -0,0 +1,136 @@
+package com.mahmoud.movieChecker.config;
+
+import com.mahmoud.movieChecker.config.ReplicaRoutingDataSource.Replica;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the auto-configured pool when read-replicas.urls is set. Writes and
+ * read-write transactions use the primary; connections of read-only
+ * transactions come from ReplicaRoutingDataSource. Every pool is a separate
+ * Hikari pool (primary, replica-1, ...) with its own hikaricp.* metrics.
+ * ReplicaConsistencyListener keeps replica reads out of the second-level
+ * cache and sends a user's reads to the primary right after they wrote.
+ */
+@Configuration
+@ConditionalOnExpression("!'${read-replicas.urls:}'.isBlank()")
+public class ReadReplicaDataSourceConfig implements DisposableBean {
+    // The schedule of refreshReplicationLag.
+    private static final Duration LAG_CHECK_INTERVAL = Duration.ofSeconds(2);
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReplicaRoutingDataSource replicaRouting;
+    private ReplicaConsistencyListener replicaConsistencyListener;
+
+    // A replica in rotation can be maxLag behind at a check and drift further until the next one.
+    @Bean
+    public ReplicaConsistencyListener replicaConsistencyListener(ReadReplicaProperties readReplicaProperties) {
+        return new ReplicaConsistencyListener(readReplicaProperties.getMaxLag().plus(LAG_CHECK_INTERVAL));
+    }
+
+    @Bean
+    public DataSource dataSource(
+        DataSourceProperties dataSourceProperties,
+        ReadReplicaProperties readReplicaProperties,
+        ReplicaConsistencyListener replicaConsistencyListener,
+        Environment environment,
+        MeterRegistry meterRegistry
+    ) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = pool(
+            "primary",
+            dataSourceProperties.getUrl(),
+            dataSourceProperties.determineUsername(),
+            dataSourceProperties.determinePassword(),
+            binder,
+            meterRegistry
+        );
+
+        String username = (readReplicaProperties.getUsername() == null)?
+                dataSourceProperties.determineUsername() : readReplicaProperties.getUsername();
+        String password = (readReplicaProperties.getPassword() == null)?
+                dataSourceProperties.determinePassword() : readReplicaProperties.getPassword();
+
+        List<Replica> replicas = new ArrayList<>();
+
+        for (int i = 0; i < readReplicaProperties.getUrls().size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource pool = pool(name, readReplicaProperties.getUrls().get(i), username, password, binder, meterRegistry);
+            pool.setReadOnly(true);
+
+            replicas.add(new Replica(name, pool));
+        }
+
+        replicaRouting = new ReplicaRoutingDataSource(
+            primary,
+            replicas,
+            readReplicaProperties.getMaxLag(),
+            replicaConsistencyListener::isCurrentUserPinned,
+            meterRegistry
+        );
+        this.replicaConsistencyListener = replicaConsistencyListener;
+
+        // The target is picked on first use, after the transaction manager marked the connection read-only or not.
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaRouting);
+
+        return dataSource;
+    }
+
+    @Scheduled(fixedDelay = 2, timeUnit = TimeUnit.SECONDS)
+    public void refreshReplicationLag() {
+        if (replicaRouting != null) {
+            replicaRouting.refreshReplicationLag();
+            replicaConsistencyListener.removeExpired();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    // Each pool gets the spring.datasource.hikari settings, with its own name and metrics.
+    private HikariDataSource pool(
+        String name,
+        String url,
+        String username,
+        String password,
+        Binder binder,
+        MeterRegistry meterRegistry
+    ) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        pools.add(pool);
+
+        return pool;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mahmoud.movieChecker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "read-replicas")
+@Getter
+@Setter
+public class ReadReplicaProperties {
+    // JDBC urls of the streaming replicas, read-only transactions are spread over them
+    private List<String> urls = new ArrayList<>();
+
+    // Default to the primary's credentials when empty
+    private String username;
+    private String password;
+
+    // A replica further behind than this is skipped until it catches up
+    private Duration maxLag = Duration.ofSeconds(5);
+}
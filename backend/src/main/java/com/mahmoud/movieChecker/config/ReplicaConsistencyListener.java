@@ -0,0 +1,90 @@
+package com.mahmoud.movieChecker.config;
+
+import jakarta.persistence.CacheStoreMode;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Covers what reading from replicas that are up to maxLag behind would get wrong:
+ *
+ * <ul>
+ * <li>Read-only transactions only read the second-level cache. Their rows may
+ * be older than what the cache was just invalidated for, and the regions
+ * don't expire, so putting them would keep them around until the next write.
+ * <li>A user whose transaction just wrote reads from the primary for a while,
+ * so a PATCH is followed by a GET that sees it.
+ * </ul>
+ */
+public class ReplicaConsistencyListener implements TransactionExecutionListener {
+    private final long pinNanos;
+
+    // Authentication name -> System.nanoTime() until which the user reads from the primary.
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReplicaConsistencyListener(Duration pin) {
+        this.pinNanos = pin.toNanos();
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isReadOnly()) {
+            return;
+        }
+
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+            }
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+
+        String user = currentUser();
+
+        if (user != null) {
+            pinnedUntil.put(user, System.nanoTime() + pinNanos);
+        }
+    }
+
+    public boolean isCurrentUserPinned() {
+        if (pinnedUntil.isEmpty()) {
+            return false;
+        }
+
+        String user = currentUser();
+        Long until = (user == null)? null : pinnedUntil.get(user);
+
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    public void removeExpired() {
+        long now = System.nanoTime();
+        pinnedUntil.values().removeIf(until -> until - now <= 0);
+    }
+
+    // Scheduled jobs and anonymous requests have nobody to pin.
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+
+        return authentication.getName();
+    }
+}
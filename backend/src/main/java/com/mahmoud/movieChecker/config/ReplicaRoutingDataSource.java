@@ -0,0 +1,253 @@
+package com.mahmoud.movieChecker.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hands out connections from the replicas in turn, skipping those that are
+ * unreachable or lag behind the primary by more than maxLag. When no replica
+ * qualifies, or the caller must see its own recent writes, the primary serves
+ * the read.
+ *
+ * <p>Lag is measured against the primary: every check samples the primary's
+ * WAL position, and a replica that hasn't replayed the latest one lags by the
+ * age of the newest sample it has replayed, or by the age of its last replayed
+ * transaction when that is shorter. A replica whose receiver stalled or
+ * disconnected keeps falling behind while the primary takes writes, even
+ * though it has replayed everything it received.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    // How far back the reported lag goes, a replica further behind reports this much.
+    private static final long SAMPLE_RETENTION_NANOS = Duration.ofMinutes(5).toNanos();
+
+    // Flushed rather than inserted WAL, only that can have been streamed yet.
+    private static final String PRIMARY_LSN_QUERY = "SELECT CAST(pg_current_wal_flush_lsn() AS text)";
+    // NULL positions for a replica that was promoted, it is as current as any primary.
+    private static final String REPLAY_QUERY = """
+            SELECT CASE WHEN pg_is_in_recovery() THEN CAST(pg_last_wal_replay_lsn() AS text) END,
+                pg_is_in_recovery(),
+                EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final BooleanSupplier readFromPrimary;
+    private final Counter fallbacks;
+    private final Counter pinnedReads;
+
+    // The primary's WAL position at recent checks, oldest first, guarded by refreshReplicationLag.
+    private final Deque<WalSample> primarySamples = new ArrayDeque<>();
+
+    public ReplicaRoutingDataSource(
+        DataSource primary,
+        List<Replica> replicas,
+        Duration maxLag,
+        BooleanSupplier readFromPrimary,
+        MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.readFromPrimary = readFromPrimary;
+        this.fallbacks = meterRegistry.counter("moviechecker.datasource.replica_fallbacks");
+        this.pinnedReads = meterRegistry.counter("moviechecker.datasource.primary_pinned_reads");
+
+        for (Replica replica : this.replicas) {
+            Gauge.builder("moviechecker.datasource.replica_lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readFromPrimary.getAsBoolean()) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+
+            if (replica.available) {
+                try {
+                    return replica.dataSource().getConnection();
+                } catch (SQLException e) {
+                    // A pool that is only busy (Hikari's timeout without a connection failure behind it) stays in rotation.
+                    if (isConnectionFailure(e)) {
+                        log.warn("Replica {} is unreachable, routing reads away from it", replica.name(), e);
+                        replica.markDown();
+                    } else {
+                        log.debug("No connection from replica {}, trying the next one: {}", replica.name(), e.toString());
+                    }
+                }
+            }
+        }
+
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the pool credentials");
+    }
+
+    // Called periodically, a replica that fails the check stays out of rotation until the next one passes.
+    public synchronized void refreshReplicationLag() {
+        long now = System.nanoTime();
+
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+
+            try (ResultSet rows = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+                rows.next();
+                primarySamples.addLast(new WalSample(now, parseLsn(rows.getString(1))));
+            }
+        } catch (SQLException e) {
+            // Without the primary's position there is nothing to compare with, the replicas keep their state.
+            log.warn("Reading the primary's WAL position failed, replica lag not updated: {}", e.toString());
+            return;
+        }
+
+        while (primarySamples.size() > 1 && now - secondOldestSample().time() >= SAMPLE_RETENTION_NANOS) {
+            primarySamples.removeFirst();
+        }
+
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(2);
+
+                try (ResultSet rows = statement.executeQuery(REPLAY_QUERY)) {
+                    rows.next();
+
+                    String replayLsn = rows.getString(1);
+
+                    if (replayLsn == null && rows.getBoolean(2)) {
+                        // In recovery but nothing replayed yet.
+                        replica.markDown();
+                        continue;
+                    }
+
+                    double lastReplayAge = rows.getDouble(3);
+
+                    replica.lagSeconds = (replayLsn == null)?
+                            0 : lagSeconds(parseLsn(replayLsn), now, rows.wasNull()? Double.MAX_VALUE : lastReplayAge);
+                }
+
+                boolean available = replica.lagSeconds <= maxLagSeconds;
+
+                if (available != replica.available) {
+                    log.info("Replica {} {} rotation (lag {}s)", replica.name(), available? "back in" : "out of", replica.lagSeconds);
+                }
+
+                replica.available = available;
+            } catch (SQLException e) {
+                replica.markDown();
+            }
+        }
+    }
+
+    // Everything committed before a replayed sample, or before the next transaction after the last replayed one, is visible.
+    private double lagSeconds(long replayLsn, long now, double lastReplayAge) {
+        if (primarySamples.getLast().lsn() <= replayLsn) {
+            return 0;
+        }
+
+        Iterator<WalSample> newestFirst = primarySamples.descendingIterator();
+        WalSample sample = null;
+
+        // Ends on the oldest sample when the replica is behind all of them.
+        while (newestFirst.hasNext()) {
+            sample = newestFirst.next();
+
+            if (sample.lsn() <= replayLsn) {
+                break;
+            }
+        }
+
+        return Math.max(0, Math.min((now - sample.time()) / 1e9, lastReplayAge));
+    }
+
+    private WalSample secondOldestSample() {
+        Iterator<WalSample> oldestFirst = primarySamples.iterator();
+        oldestFirst.next();
+
+        return oldestFirst.next();
+    }
+
+    // SQLState class 08 or an I/O error anywhere in the chain, Hikari passes the last connection failure's state on.
+    private static boolean isConnectionFailure(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // "16/B374D848" as one number, so positions compare like pg_lsn.
+    private static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    private record WalSample(long time, long lsn) {}
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available = true;
+        private volatile double lagSeconds;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() {
+            return name;
+        }
+
+        DataSource dataSource() {
+            return dataSource;
+        }
+
+        private void markDown() {
+            available = false;
+            lagSeconds = Double.NaN;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.mahmoud.movieChecker.config;
 
 import com.mahmoud.movieChecker.filter.JwtAuthenticationFilter;
+import com.mahmoud.movieChecker.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,17 +45,18 @@ public class SecurityConfig {
 
     @Bean
     public AuthenticationProvider authenticationProvider(
-        UserDetailsService userDetailsService
+        UserDetailsService userDetailsService,
+        PasswordEncoder passwordEncoder
     ) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
 
         return provider;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
@@ -64,6 +67,8 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(c -> c
                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/users/**").permitAll()
                 .requestMatchers(HttpMethod.PATCH, "/users/reset-password/request").permitAll()
                 .requestMatchers(HttpMethod.PATCH, "/users/reset-password/verify").permitAll()
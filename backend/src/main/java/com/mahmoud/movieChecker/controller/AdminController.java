@@ -3,12 +3,15 @@ package com.mahmoud.movieChecker.controller;
 import com.mahmoud.movieChecker.dto.ChangeRoleRequest;
 import com.mahmoud.movieChecker.service.AdminService;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+// Only admins use it, so it (and AdminService) is created on the first request.
 @RestController
+@Lazy
 @RequestMapping("/admin")
 @AllArgsConstructor
 public class AdminController {
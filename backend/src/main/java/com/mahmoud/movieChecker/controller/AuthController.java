@@ -3,6 +3,8 @@ package com.mahmoud.movieChecker.controller;
 import com.mahmoud.movieChecker.dto.JwtResponse;
 import com.mahmoud.movieChecker.dto.LoginUserRequest;
 import com.mahmoud.movieChecker.dto.UserDto;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
 import com.mahmoud.movieChecker.service.AuthService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -17,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     private final AuthService authService;
 
+    @QueryBudget(statements = 2)
+    @AdaptiveLimit(AdaptiveLimit.Group.LOGIN)
     @PostMapping("/login")
     public ResponseEntity<JwtResponse> login(
         @Valid @RequestBody LoginUserRequest loginRequest,
@@ -37,6 +41,7 @@ public class AuthController {
         return ResponseEntity.noContent().build();
     }
 
+    @QueryBudget(statements = 2)
     @PostMapping("/refresh")
     public ResponseEntity<JwtResponse> refresh(
         @CookieValue(value = "refreshToken") String refreshToken
@@ -46,6 +51,7 @@ public class AuthController {
     }
 
     @PreAuthorize("isAuthenticated()")
+    @QueryBudget(statements = 2)
     @GetMapping("/me")
     public ResponseEntity<UserDto> me() {
         return ResponseEntity.ok(authService.me());
@@ -1,38 +1,165 @@
 package com.mahmoud.movieChecker.controller;
 
+import com.mahmoud.movieChecker.dto.MovieBrowseRequest;
+import com.mahmoud.movieChecker.dto.MovieBrowseResponse;
 import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import com.mahmoud.movieChecker.service.CacheVersionService;
+import com.mahmoud.movieChecker.service.GenreService;
+import com.mahmoud.movieChecker.service.MovieBrowseService;
 import com.mahmoud.movieChecker.service.MovieDetailsService;
+import com.mahmoud.movieChecker.service.MoviePopularityService;
+import com.mahmoud.movieChecker.service.MovieSimilarityService;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
 @RestController
 @RequestMapping("/movies")
+@RateLimit(RateLimit.Endpoint.CATALOG)
 @AllArgsConstructor
 public class MovieDetailsController {
+    // Movie data is public, so the nginx proxy and browsers may share it for a short while.
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(30)).cachePublic();
+    private static final CacheControl LEADERBOARD_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
+
     private final MovieDetailsService movieDetailsService;
+    private final MoviePopularityService moviePopularityService;
+    private final MovieSimilarityService movieSimilarityService;
+    private final GenreService genreService;
+    private final MovieBrowseService movieBrowseService;
+    private final CacheVersionService cacheVersionService;
 
+    @QueryBudget(statements = 3)
     @GetMapping
-    public Set<MovieDetails> getAllMovies() {
-        return movieDetailsService.getAllMovies();
+    public ResponseEntity<Set<MovieDetails>> getAllMovies(WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(movieDetailsService.getAllMovies());
+    }
+
+    @QueryBudget(statements = 4)
+    @GetMapping("/browse")
+    public ResponseEntity<MovieBrowseResponse> browse(
+        @Valid MovieBrowseRequest movieBrowseRequest,
+        WebRequest webRequest
+    ) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(movieBrowseService.browse(movieBrowseRequest));
+    }
+
+    @QueryBudget(statements = 2)
+    @GetMapping("/genres")
+    public ResponseEntity<List<String>> getAllGenres(WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(genreService.getAllGenres());
     }
 
+    // Four lookups (two on the search's own threads), then per stored OMDb title (at most five) the upsert,
+    // the catalog version bump and the reload, and two more for each genre seen for the first time.
+    @QueryBudget(statements = 40)
+    @RateLimit(RateLimit.Endpoint.SEARCH)
+    @AdaptiveLimit(AdaptiveLimit.Group.SEARCH)
     @GetMapping("/search")
-    public List<MovieDetails> search(
-        @RequestParam String q
+    public ResponseEntity<List<MovieDetails>> search(
+        @RequestParam String q,
+        @RequestParam(required = false) String genre,
+        WebRequest webRequest
+    ) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        MovieDetailsService.SearchResult result = movieDetailsService.search(q, genre);
+
+        // A partial result must not be kept by nginx or revalidated as the catalog version's answer.
+        return ResponseEntity.ok()
+                .cacheControl(result.complete()? CATALOG_CACHE_CONTROL : CacheControl.noStore())
+                .body(result.movies());
+    }
+
+    // Streams are never cached, and the statements run on the search's own threads.
+    // X-Accel-Buffering keeps nginx from holding the events back until the stream ends.
+    @RateLimit(RateLimit.Endpoint.SEARCH)
+    @AdaptiveLimit(AdaptiveLimit.Group.SEARCH)
+    @GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> searchStream(
+        @RequestParam String q,
+        @RequestParam(required = false) String genre
     ) {
-        return movieDetailsService.search(q);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no")
+                .body(movieDetailsService.searchStream(q, genre));
     }
 
+    @QueryBudget(statements = 12)
+    @RateLimit(RateLimit.Endpoint.SUGGEST)
     @GetMapping("/search/suggest")
-    public List<String> suggest(
-        @RequestParam String q
+    public ResponseEntity<List<String>> suggest(
+        @RequestParam String q,
+        WebRequest webRequest
     ) {
-        return movieDetailsService.suggest(q);
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(movieDetailsService.suggest(q));
+    }
+
+    @QueryBudget(statements = 2)
+    @GetMapping("/leaderboards/most-watched")
+    public ResponseEntity<List<MovieDetails>> getMostWatched() {
+        return ResponseEntity.ok().cacheControl(LEADERBOARD_CACHE_CONTROL).body(moviePopularityService.getMostWatched());
+    }
+
+    @QueryBudget(statements = 2)
+    @GetMapping("/leaderboards/most-favorited")
+    public ResponseEntity<List<MovieDetails>> getMostFavorited() {
+        return ResponseEntity.ok().cacheControl(LEADERBOARD_CACHE_CONTROL).body(moviePopularityService.getMostFavorited());
+    }
+
+    @QueryBudget(statements = 2)
+    @GetMapping("/leaderboards/top-rated")
+    public ResponseEntity<List<MovieDetails>> getTopRated() {
+        return ResponseEntity.ok().cacheControl(LEADERBOARD_CACHE_CONTROL).body(moviePopularityService.getTopRated());
+    }
+
+    @QueryBudget(statements = 3)
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<MovieDetails>> getSimilarMovies(
+        @PathVariable("id") Long movieId,
+        WebRequest webRequest
+    ) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(movieSimilarityService.getSimilarMovies(movieId));
+    }
+
+    // Sets ETag / Last-Modified and, when the client copy is current, turns the response into a 304.
+    private boolean isCatalogNotModified(WebRequest webRequest) {
+        CacheVersionService.Version version = cacheVersionService.getCatalogVersion();
+        return webRequest.checkNotModified(version.eTag(), version.lastModified());
     }
 }
@@ -0,0 +1,90 @@
+package com.mahmoud.movieChecker.controller;
+
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import com.mahmoud.movieChecker.service.PosterCacheService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/movies/posters")
+@RateLimit(RateLimit.Endpoint.POSTERS)
+@AllArgsConstructor
+public class PosterController {
+    // The url carries the poster version, so whatever it points to never changes.
+    private static final CacheControl POSTER_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    // Tomcat's sendfile: it copies the file to the socket itself with FileChannel.transferTo.
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final PosterCacheService posterCacheService;
+
+    @QueryBudget(statements = 1)
+    @GetMapping("/{imdbId}/{version}")
+    public void getPoster(
+        @PathVariable String imdbId,
+        @PathVariable String version,
+        @RequestParam(required = false) Integer width,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        String sourceUrl = posterCacheService.sourceUrl(imdbId, version);
+        Optional<PosterCacheService.Poster> poster = posterCacheService.getPoster(sourceUrl, width);
+
+        // Better the original host than no poster at all.
+        if (poster.isEmpty()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.sendRedirect(sourceUrl);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, POSTER_CACHE_CONTROL.getHeaderValue());
+
+        if (new ServletWebRequest(request, response).checkNotModified(poster.get().etag())) {
+            return;
+        }
+
+        transfer(poster.get(), request, response);
+    }
+
+    private static void transfer(
+        PosterCacheService.Poster poster,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(poster.contentType());
+        response.setContentLengthLong(poster.size());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, poster.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, poster.size());
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(poster.file())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            long transferred;
+
+            while (position < poster.size() && (transferred = file.transferTo(position, poster.size() - position, out)) > 0) {
+                position += transferred;
+            }
+        }
+    }
+}
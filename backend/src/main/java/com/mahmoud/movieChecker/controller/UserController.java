@@ -1,18 +1,26 @@
 package com.mahmoud.movieChecker.controller;
 
 import com.mahmoud.movieChecker.dto.*;
+import com.mahmoud.movieChecker.entity.Role;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
 import com.mahmoud.movieChecker.security.CustomUserDetails;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
 import com.mahmoud.movieChecker.security.annotation.IsSelfOrAdmin;
 import com.mahmoud.movieChecker.service.UserService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/users")
@@ -20,6 +28,7 @@ import java.util.List;
 public class UserController {
     private final UserService userService;
 
+    @AdaptiveLimit(AdaptiveLimit.Group.LOGIN)
     @PostMapping
     public ResponseEntity<Void> signUp(
         @Valid @RequestBody RegisterUserRequest request,
@@ -34,18 +43,46 @@ public class UserController {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(statements = 2)
     @GetMapping
-    public List<UserDto> getAllUser() {
-        return userService.getAllUsers();
+    public UserPageResponse getUsers(
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(defaultValue = "50") int limit,
+        @RequestParam(required = false) String email,
+        @RequestParam(required = false) String name,
+        @RequestParam(required = false) Role role
+    ) {
+        return userService.getUsers(afterId, limit, email, name, role);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @AdaptiveLimit(AdaptiveLimit.Group.EXPORT)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+        @RequestParam(required = false) String email,
+        @RequestParam(required = false) String name,
+        @RequestParam(required = false) Role role
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            userService.exportUsers(email, name, role, writer);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\"")
+                .body(body);
     }
 
     @IsSelfOrAdmin
+    @QueryBudget(statements = 2)
     @GetMapping("/{id}")
     public ResponseEntity<UserDto> getUser(@PathVariable("id") Long userId) {
         return ResponseEntity.ok(userService.getUserInfo(userId));
     }
 
     @PreAuthorize("isAuthenticated()")
+    @QueryBudget(statements = 3)
     @PatchMapping("/change-name")
     public ResponseEntity<Void> updateUserName(
         @AuthenticationPrincipal CustomUserDetails user,
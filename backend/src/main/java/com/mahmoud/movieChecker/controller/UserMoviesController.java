@@ -3,14 +3,22 @@ package com.mahmoud.movieChecker.controller;
 import com.mahmoud.movieChecker.dto.ChangeMovieFavoriteRequest;
 import com.mahmoud.movieChecker.dto.ChangeMovieStatusRequest;
 import com.mahmoud.movieChecker.dto.ChangeUserRateRequest;
+import com.mahmoud.movieChecker.dto.UserMoviesStatsResponse;
 import com.mahmoud.movieChecker.entity.MovieStatus;
 import com.mahmoud.movieChecker.entity.UserMovies;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.security.CustomUserDetails;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import com.mahmoud.movieChecker.service.CacheVersionService;
 import com.mahmoud.movieChecker.service.UserMoviesService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,16 +27,44 @@ import java.util.List;
 @PreAuthorize("isAuthenticated()")
 @AllArgsConstructor
 public class UserMoviesController {
+    // Private data: browsers keep it but must revalidate it with the ETag on every use.
+    private static final CacheControl COLLECTION_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final UserMoviesService userMoviesService;
+    private final CacheVersionService cacheVersionService;
 
+    // A cold second-level cache adds one batch load per 256 missing movies.
+    @QueryBudget(statements = 9)
+    @AdaptiveLimit(AdaptiveLimit.Group.COLLECTION)
     @GetMapping
     public ResponseEntity<List<UserMovies>> getUserMovies(
+        @AuthenticationPrincipal CustomUserDetails user,
         @RequestParam(required = false) MovieStatus status,
-        @RequestParam(required = false) Boolean favorite
+        @RequestParam(required = false) Boolean favorite,
+        WebRequest webRequest
+    ) {
+        if (webRequest.checkNotModified(cacheVersionService.getCollectionWithMoviesETag(user.getId()))) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(COLLECTION_CACHE_CONTROL).body(userMoviesService.getUserMovies(status, favorite));
+    }
+
+    @QueryBudget(statements = 5)
+    @AdaptiveLimit(AdaptiveLimit.Group.COLLECTION)
+    @GetMapping("/stats")
+    public ResponseEntity<UserMoviesStatsResponse> getUserMoviesStats(
+        @AuthenticationPrincipal CustomUserDetails user,
+        WebRequest webRequest
     ) {
-        return ResponseEntity.ok(userMoviesService.getUserMovies(status, favorite));
+        if (webRequest.checkNotModified(cacheVersionService.getCollectionETag(user.getId()))) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(COLLECTION_CACHE_CONTROL).body(userMoviesService.getUserMoviesStats());
     }
 
+    @QueryBudget(statements = 10, entities = 10)
     @PatchMapping("/status")
     public ResponseEntity<Void> updateMovieStatus(
         @Valid @RequestBody ChangeMovieStatusRequest changeMovieStatusRequest
@@ -37,6 +73,7 @@ public class UserMoviesController {
         return ResponseEntity.ok().build();
     }
 
+    @QueryBudget(statements = 10, entities = 10)
     @PatchMapping("/favorite")
     public ResponseEntity<Void> updateMovieFavorite(
         @Valid @RequestBody ChangeMovieFavoriteRequest changeMovieFavoriteRequest
@@ -45,6 +82,7 @@ public class UserMoviesController {
         return ResponseEntity.ok().build();
     }
 
+    @QueryBudget(statements = 6, entities = 10)
     @PatchMapping("/user-rate")
     public ResponseEntity<Void> updateUserRate(
         @Valid @RequestBody ChangeUserRateRequest changeUserRateRequest
@@ -0,0 +1,7 @@
+package com.mahmoud.movieChecker.dto;
+
+public interface GenreCount {
+    String getGenre();
+
+    Long getCount();
+}
@@ -0,0 +1,9 @@
+package com.mahmoud.movieChecker.dto;
+
+import java.time.LocalDate;
+
+public interface MonthCount {
+    LocalDate getMonth();
+
+    Long getCount();
+}
@@ -0,0 +1,35 @@
+package com.mahmoud.movieChecker.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MovieBrowseRequest {
+    private Integer yearFrom;
+    private Integer yearTo;
+
+    // Comma separated, a movie must have all of them.
+    private String genre;
+
+    private String type;
+
+    @DecimalMin(value = "0.0", message = "Minimum rate cannot be negative.")
+    @DecimalMax(value = "10.0", message = "Minimum rate must be at most 10.0.")
+    private Double minRate;
+
+    @DecimalMin(value = "0.0", message = "Maximum rate cannot be negative.")
+    @DecimalMax(value = "10.0", message = "Maximum rate must be at most 10.0.")
+    private Double maxRate;
+
+    // The previous page's nextAfter.
+    private String after;
+
+    @Min(value = 1, message = "Limit must be at least 1.")
+    @Max(value = 100, message = "Limit must be at most 100.")
+    private Integer limit;
+}
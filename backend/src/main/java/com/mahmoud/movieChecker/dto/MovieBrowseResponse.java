@@ -0,0 +1,18 @@
+package com.mahmoud.movieChecker.dto;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class MovieBrowseResponse {
+    private List<MovieDetails> movies;
+
+    // Pass as after (with the same filters) to fetch the next page, null when this is the last one.
+    private String nextAfter;
+
+    private MovieFacets facets;
+}
@@ -0,0 +1,21 @@
+package com.mahmoud.movieChecker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Number of movies per value of each browse dimension. Every facet applies all the
+ * other filters but not its own, so it shows what selecting another value would return.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieFacets {
+    private Map<Integer, Long> years;
+    private Map<String, Long> genres;
+    private Map<String, Long> types;
+
+    // Whole imdb rate (7 -> 7.0 to 7.9) -> count
+    private Map<Integer, Long> imdbRates;
+}
@@ -0,0 +1,21 @@
+package com.mahmoud.movieChecker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class UserMoviesStatsResponse {
+    private int watchedCount;
+    private int watchListCount;
+    private int favoriteCount;
+    private Double averageUserRate;
+
+    // Genre -> number of movies in the collection with that genre.
+    private Map<String, Long> genres;
+
+    // "yyyy-MM" -> number of movies added in that month.
+    private Map<String, Long> addedPerMonth;
+}
@@ -0,0 +1,15 @@
+package com.mahmoud.movieChecker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UserPageResponse {
+    private List<UserDto> users;
+
+    // Pass as afterId to fetch the next page, null when this is the last one.
+    private Long nextAfterId;
+}
@@ -0,0 +1,26 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "catalog_version", schema="movie_checker")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogVersion {
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    // Bumped by CacheVersionService.catalogChanged after writes to movie_details, movie_popularity and movie_similarity.
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,21 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "genres", schema="movie_checker")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Genre {
+    // Also the bit of the genre in movie_details.genre_mask.
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "name")
+    private String name;
+}
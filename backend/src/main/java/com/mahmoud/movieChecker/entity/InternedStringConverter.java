@@ -0,0 +1,20 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Shares one String instance per distinct value for low-cardinality columns such as genre and type.
+ */
+@Converter
+public class InternedStringConverter implements AttributeConverter<String, String> {
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return (dbData == null)? null : dbData.intern();
+    }
+}
@@ -3,18 +3,34 @@ package com.mahmoud.movieChecker.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "movie_details", schema="movie_checker")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = MovieDetails.CACHE_REGION)
+@SqlResultSetMapping(
+    name = MovieDetails.STORED_RESULT,
+    entities = @EntityResult(entityClass = MovieDetails.class),
+    columns = @ColumnResult(name = "inserted", type = Boolean.class)
+)
+@BatchSize(size = 256)
 @Getter
 @Setter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class MovieDetails {
+    public static final String CACHE_REGION = "movie-details";
+    public static final String LOOKUP_CACHE_REGION = "movie-lookups";
+    // The movie and whether the statement inserted it, for MovieDetailsRepository.store.
+    public static final String STORED_RESULT = "MovieDetails.stored";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -33,9 +49,15 @@ public class MovieDetails {
     private String posterUrl;
 
     @Column(name = "genre")
+    @Convert(converter = InternedStringConverter.class)
     private String genre;
 
+    @JsonIgnore
+    @Column(name = "genre_mask")
+    private Long genreMask;
+
     @Column(name = "type")
+    @Convert(converter = InternedStringConverter.class)
     private String type;
 
     @Column(name = "overview")
@@ -0,0 +1,29 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "movie_popularity", schema="movie_checker")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MoviePopularity {
+    @Id
+    @Column(name = "movie_details_id")
+    private Long movieDetailsId;
+
+    @Column(name = "watched_count")
+    private Long watchedCount;
+
+    @Column(name = "favorite_count")
+    private Long favoriteCount;
+
+    @Column(name = "rated_count")
+    private Long ratedCount;
+
+    @Column(name = "user_rate_sum")
+    private Double userRateSum;
+}
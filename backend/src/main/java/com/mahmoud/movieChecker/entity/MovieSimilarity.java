@@ -0,0 +1,27 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "movie_similarity", schema="movie_checker")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovieSimilarity {
+    @EmbeddedId
+    private MovieSimilarityId id;
+
+    @Column(name = "similar_movie_details_id")
+    private Long similarMovieDetailsId;
+
+    @Column(name = "score")
+    private Float score;
+
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+}
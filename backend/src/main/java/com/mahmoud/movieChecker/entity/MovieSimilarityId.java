@@ -0,0 +1,21 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovieSimilarityId implements Serializable {
+    @Column(name = "movie_details_id")
+    private Long movieDetailsId;
+
+    @Column(name = "rank")
+    private Integer rank;
+}
@@ -46,14 +46,14 @@ public class User {
     private LocalDate joinDate;
 
     @JsonIgnore
-    @OneToMany(mappedBy = "user", orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private Set<UserMovies> userMoviesSet = new HashSet<>();
 
     @JsonIgnore
-    @OneToMany(mappedBy = "user", orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private Set<VerificationToken> verificationTokenSet = new HashSet<>();
 
     @JsonIgnore
-    @OneToMany(mappedBy = "user", orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private List<ResetInfoVerificationCode> ResetInfoVerificationCodeList = new ArrayList<>();
 }
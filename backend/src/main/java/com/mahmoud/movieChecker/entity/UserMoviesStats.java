@@ -0,0 +1,36 @@
+package com.mahmoud.movieChecker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "user_movies_stats", schema="movie_checker")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserMoviesStats {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "watched_count")
+    private Integer watchedCount;
+
+    @Column(name = "watch_list_count")
+    private Integer watchListCount;
+
+    @Column(name = "favorite_count")
+    private Integer favoriteCount;
+
+    @Column(name = "rated_count")
+    private Integer ratedCount;
+
+    @Column(name = "user_rate_sum")
+    private Double userRateSum;
+
+    // Bumped on every change to the user's collection, used as its ETag.
+    @Column(name = "collection_version")
+    private Long collectionVersion;
+}
@@ -28,4 +28,12 @@ public class ApiError {
     public static ApiError conflict(String message) {
         return new ApiError(HttpStatus.CONFLICT.value(), message);
     }
+
+    public static ApiError tooManyRequests(String message) {
+        return new ApiError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+
+    public static ApiError serviceUnavailable(String message) {
+        return new ApiError(HttpStatus.SERVICE_UNAVAILABLE.value(), message);
+    }
 }
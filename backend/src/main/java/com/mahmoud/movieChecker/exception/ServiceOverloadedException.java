@@ -0,0 +1,7 @@
+package com.mahmoud.movieChecker.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException() {
+        super("The server is busy, please try again shortly.");
+    }
+}
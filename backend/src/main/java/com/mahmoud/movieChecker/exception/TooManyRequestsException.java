@@ -0,0 +1,16 @@
+package com.mahmoud.movieChecker.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    // Whole seconds (rounded up) until the request would be let through, for Retry-After.
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(Duration retryAfter) {
+        super("Too many requests.");
+        this.retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
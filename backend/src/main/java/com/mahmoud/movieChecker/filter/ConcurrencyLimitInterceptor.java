@@ -0,0 +1,107 @@
+package com.mahmoud.movieChecker.filter;
+
+import com.mahmoud.movieChecker.exception.ServiceOverloadedException;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import com.mahmoud.movieChecker.service.ConcurrencyLimitService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Holds a slot of the endpoint's {@link AdaptiveLimit} group for as long as
+ * the request runs and sheds it with a 503 when the group is full. Runs after
+ * the rate limit, so throttled clients never take a slot.
+ *
+ * <p>An async request (event stream, export) keeps its slot until the
+ * servlet container completes it, but its duration isn't used as a latency
+ * sample.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch of a request that already holds its slot.
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        AdaptiveLimit adaptiveLimit = findAdaptiveLimit(handlerMethod);
+
+        if (adaptiveLimit == null) {
+            return true;
+        }
+
+        ConcurrencyLimitService.Permit permit = concurrencyLimitService.tryAcquire(adaptiveLimit.value());
+
+        if (permit == null) {
+            throw new ServiceOverloadedException();
+        }
+
+        request.setAttribute(PERMIT, permit);
+
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(request.getAttribute(PERMIT) instanceof ConcurrencyLimitService.Permit permit)) {
+            return;
+        }
+
+        try {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    permit.releaseWithoutSample();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } catch (IllegalStateException e) {
+            // Already completed.
+            permit.releaseWithoutSample();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Async requests are released by their listener.
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return;
+        }
+
+        if (request.getAttribute(PERMIT) instanceof ConcurrencyLimitService.Permit permit) {
+            permit.release(ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    private static AdaptiveLimit findAdaptiveLimit(HandlerMethod handler) {
+        AdaptiveLimit adaptiveLimit = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), AdaptiveLimit.class);
+
+        return adaptiveLimit != null
+                ? adaptiveLimit
+                : AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), AdaptiveLimit.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.mahmoud.movieChecker.filter;
+
+import com.mahmoud.movieChecker.exception.QueryBudgetExceededException;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.monitoring.QueryBudgetMode;
+import com.mahmoud.movieChecker.monitoring.QueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements and entities each request costs and compares them
+ * with the endpoint's {@link QueryBudget}. In LOG mode (production) requests
+ * over budget are logged and counted, in FAIL mode (tests) they throw.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    private final QueryBudgetMode mode;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetFilter(
+        @Value("${query-budget.mode:LOG}") QueryBudgetMode mode,
+        MeterRegistry meterRegistry
+    ) {
+        this.mode = mode;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (mode == QueryBudgetMode.OFF) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        QueryCounter.reset();
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = QueryCounter.statements();
+            int entities = QueryCounter.entities();
+
+            QueryCounter.reset();
+            checkBudget(request, statements, entities);
+        }
+    }
+
+    private void checkBudget(HttpServletRequest request, int statements, int entities) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+            return;
+        }
+
+        String endpoint = request.getMethod() + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        meterRegistry.summary("moviechecker.http.queries", "endpoint", endpoint).record(statements);
+
+        QueryBudget budget = findBudget(handler);
+
+        if (budget == null || (statements <= budget.statements() && entities <= budget.entities())) {
+            return;
+        }
+
+        String message = String.format(
+            "%s went over its query budget: %d statements (budget %d), %d entities (budget %d)",
+            endpoint, statements, budget.statements(), entities, budget.entities()
+        );
+
+        meterRegistry.counter("moviechecker.http.queries.over_budget", "endpoint", endpoint).increment();
+
+        if (mode == QueryBudgetMode.FAIL) {
+            throw new QueryBudgetExceededException(message);
+        }
+
+        log.warn(message);
+    }
+
+    private static QueryBudget findBudget(HandlerMethod handler) {
+        QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), QueryBudget.class);
+
+        return budget != null
+                ? budget
+                : AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), QueryBudget.class);
+    }
+}
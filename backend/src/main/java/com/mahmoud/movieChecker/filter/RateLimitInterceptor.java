@@ -0,0 +1,68 @@
+package com.mahmoud.movieChecker.filter;
+
+import com.mahmoud.movieChecker.exception.TooManyRequestsException;
+import com.mahmoud.movieChecker.security.CustomUserDetails;
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import com.mahmoud.movieChecker.service.RateLimitService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Applies the endpoint's {@link RateLimit} per client: the user id when the
+ * request carries a valid token, the client address otherwise (nginx's
+ * X-Real-IP, see server.tomcat.remoteip). Throttled requests get a 429 with
+ * Retry-After.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimitService rateLimitService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An event stream comes back through here on its async dispatch, which mustn't take a second token.
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        RateLimit rateLimit = findRateLimit(handlerMethod);
+
+        if (rateLimit == null) {
+            return true;
+        }
+
+        Duration wait = rateLimitService.tryAcquire(rateLimit.value(), RateLimitService.clientKey(userId(), request.getRemoteAddr()));
+
+        if (!wait.isZero()) {
+            throw new TooManyRequestsException(wait);
+        }
+
+        return true;
+    }
+
+    private static Long userId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        return authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user
+                ? user.getId()
+                : null;
+    }
+
+    private static RateLimit findRateLimit(HandlerMethod handler) {
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), RateLimit.class);
+
+        return rateLimit != null
+                ? rateLimit
+                : AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RateLimit.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.mahmoud.movieChecker.mapper;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.service.PosterCacheService;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.BeanDescription;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.BeanPropertyWriter;
+import tools.jackson.databind.ser.ValueSerializerModifier;
+
+import java.util.List;
+
+/**
+ * Writes MovieDetails.posterUrl as the url of our poster cache. Registered
+ * with the application's JSON mapper as a Spring bean, so the entity itself
+ * knows nothing about the cache and plain mappers write the stored url.
+ */
+@Component
+public class PosterUrlModule extends SimpleModule {
+    public PosterUrlModule(PosterCacheService posterCacheService) {
+        super(PosterUrlModule.class.getSimpleName());
+
+        ValueSerializer<Object> posterUrlSerializer = new ValueSerializer<>() {
+            @Override
+            public void serialize(Object posterUrl, JsonGenerator generator, SerializationContext context) {
+                MovieDetails movie = (MovieDetails) generator.currentValue();
+
+                generator.writeString(posterCacheService.localUrl(movie.getImdbId(), (String) posterUrl));
+            }
+        };
+
+        setSerializerModifier(new ValueSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(
+                SerializationConfig config,
+                BeanDescription.Supplier beanDesc,
+                List<BeanPropertyWriter> beanProperties
+            ) {
+                if (MovieDetails.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    beanProperties.stream()
+                            .filter(property -> property.getName().equals("posterUrl"))
+                            .forEach(property -> property.assignSerializer(posterUrlSerializer));
+                }
+
+                return beanProperties;
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times JDBC statement and batch executions of every Hibernate session as
+ * moviechecker.jdbc.execute (kind=statement|batch). Hibernate creates one
+ * listener per session from the class name, so the timers are shared through
+ * static fields set once by bindTo.
+ */
+public class JdbcTimingListener implements SessionEventListener {
+    private static volatile Timer statements;
+    private static volatile Timer batches;
+
+    private transient long statementStart;
+    private transient long batchStart;
+
+    public static void bindTo(MeterRegistry meterRegistry) {
+        statements = Timer.builder("moviechecker.jdbc.execute").tag("kind", "statement").register(meterRegistry);
+        batches = Timer.builder("moviechecker.jdbc.execute").tag("kind", "batch").register(meterRegistry);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(statements, statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batches, batchStart);
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements (and optionally entities loaded) a single
+ * request to the annotated endpoint may cost. Checked by QueryBudgetFilter.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int statements();
+
+    int entities() default Integer.MAX_VALUE;
+}
@@ -0,0 +1,7 @@
+package com.mahmoud.movieChecker.monitoring;
+
+public enum QueryBudgetMode {
+    OFF,
+    LOG,
+    FAIL
+}
@@ -0,0 +1,62 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-thread count of the statements Hibernate prepared and the entities it
+ * loaded, reset at the start of every HTTP request. Work a request hands to
+ * other threads is counted with it when wrapped with {@link #propagate}.
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+    private QueryCounter() {
+    }
+
+    // A fresh instance rather than zeroing, so subtasks still running from the last request don't count towards the next one.
+    public static void reset() {
+        COUNTS.set(new Counts());
+    }
+
+    public static int statements() {
+        return COUNTS.get().statements.get();
+    }
+
+    public static int entities() {
+        return COUNTS.get().entities.get();
+    }
+
+    /**
+     * Runs the task with the calling thread's counts, so what it costs on
+     * another thread is added to them.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Counts counts = COUNTS.get();
+
+        return () -> {
+            Counts previous = COUNTS.get();
+            COUNTS.set(counts);
+
+            try {
+                return task.call();
+            } finally {
+                COUNTS.set(previous);
+            }
+        };
+    }
+
+    static void statementPrepared() {
+        COUNTS.get().statements.incrementAndGet();
+    }
+
+    static void entityLoaded() {
+        COUNTS.get().entities.incrementAndGet();
+    }
+
+    // Shared with the threads of propagated tasks.
+    private static final class Counts {
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicInteger entities = new AtomicInteger();
+    }
+}
@@ -0,0 +1,23 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * Feeds QueryCounter: every SQL string Hibernate prepares (JPQL, native and
+ * flush statements alike) and every entity it hydrates.
+ */
+public class QueryCountingInspector implements StatementInspector, Interceptor {
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementPrepared();
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCounter.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes Hibernate's per-region second-level cache statistics (hits, misses
+ * and puts) as moviechecker.cache.* meters tagged with the region name. JCache
+ * regions don't report their size, so there is no size gauge.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Named query regions only exist once a query uses them, so they are listed explicitly.
+        Set<String> regions = new TreeSet<>(Arrays.asList(statistics.getSecondLevelCacheRegionNames()));
+        regions.add(MovieDetails.LOOKUP_CACHE_REGION);
+
+        for (String region : regions) {
+            counter(registry, "moviechecker.cache.gets", region, "hit", statistics, CacheRegionStatistics::getHitCount);
+            counter(registry, "moviechecker.cache.gets", region, "miss", statistics, CacheRegionStatistics::getMissCount);
+            counter(registry, "moviechecker.cache.puts", region, null, statistics, CacheRegionStatistics::getPutCount);
+        }
+    }
+
+    private static void counter(
+        MeterRegistry registry,
+        String name,
+        String region,
+        String result,
+        Statistics statistics,
+        ToLongFunction<CacheRegionStatistics> count
+    ) {
+        FunctionCounter.Builder<Statistics> builder = FunctionCounter.builder(name, statistics, stats -> {
+                    CacheRegionStatistics regionStatistics = stats.getCacheRegionStatistics(region);
+                    return (regionStatistics == null)? 0 : count.applyAsLong(regionStatistics);
+                })
+                .tag("region", region);
+
+        if (result != null) {
+            builder.tag("result", result);
+        }
+
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mahmoud.movieChecker.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logs the slowest bean initializations once the application is ready, from
+ * the steps recorded by the BufferingApplicationStartup set up in main(). A
+ * bean's own time leaves out the beans created while it was (its
+ * dependencies), so the slow bean itself is the one at the top.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupReport {
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+    private final ApplicationStartup applicationStartup;
+
+    @Value("${startup.report.slowest-beans:10}")
+    private int slowestBeans;
+
+    public record BeanTiming(String bean, Duration self, Duration total) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logSlowestBeans(ApplicationReadyEvent event) {
+        List<BeanTiming> timings = slowestBeans(slowestBeans);
+
+        if (timings.isEmpty()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder("Ready in " + event.getTimeTaken().toMillis() + " ms, slowest beans (own / with dependencies):");
+
+        for (BeanTiming timing : timings) {
+            report.append(String.format("%n  %-60s %6d ms %6d ms", timing.bean(), timing.self().toMillis(), timing.total().toMillis()));
+        }
+
+        log.info(report.toString());
+    }
+
+    // Empty when the application wasn't started with a BufferingApplicationStartup (e.g. in tests).
+    public List<BeanTiming> slowestBeans(int limit) {
+        if (!(applicationStartup instanceof BufferingApplicationStartup buffering)) {
+            return List.of();
+        }
+
+        List<StartupTimeline.TimelineEvent> beans = buffering.getBufferedTimeline().getEvents().stream()
+                .filter(event -> event.getStartupStep().getName().equals(BEAN_INSTANTIATION))
+                .toList();
+
+        Map<Long, Duration> nested = new HashMap<>();
+
+        for (StartupTimeline.TimelineEvent event : beans) {
+            Long parentId = event.getStartupStep().getParentId();
+
+            if (parentId != null) {
+                nested.merge(parentId, event.getDuration(), Duration::plus);
+            }
+        }
+
+        return beans.stream()
+                .map(event -> new BeanTiming(
+                    beanName(event.getStartupStep()),
+                    event.getDuration().minus(nested.getOrDefault(event.getStartupStep().getId(), Duration.ZERO)),
+                    event.getDuration()
+                ))
+                .sorted(Comparator.comparing(BeanTiming::self).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+
+        return "?";
+    }
+}
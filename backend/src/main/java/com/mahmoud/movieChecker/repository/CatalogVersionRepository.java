@@ -0,0 +1,24 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.CatalogVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+    // Its own transaction, also when called from afterCommit of the write it reports.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.catalog_version"))
+    @Query(value = """
+            UPDATE movie_checker.catalog_version
+            SET version = version + 1, updated_at = now()
+            WHERE id = :id""", nativeQuery = true)
+    void bump(@Param("id") int id);
+}
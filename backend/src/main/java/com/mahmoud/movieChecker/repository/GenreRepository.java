@@ -0,0 +1,30 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.Genre;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface GenreRepository extends JpaRepository<Genre, Integer> {
+    Optional<Genre> findByName(String name);
+
+    // Takes the next free bit; a concurrent insert of another genre makes this a no-op and the caller retries.
+    // Commits on its own so callers inside a longer transaction don't hold the new bit until they finish.
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.genres"))
+    @Query(value = """
+            INSERT INTO movie_checker.genres (id, name)
+            SELECT COALESCE(MAX(id) + 1, 0), :name FROM movie_checker.genres
+            HAVING COALESCE(MAX(id) + 1, 0) < 63
+            ON CONFLICT DO NOTHING""", nativeQuery = true)
+    void insertIfAbsent(@Param("name") String name);
+}
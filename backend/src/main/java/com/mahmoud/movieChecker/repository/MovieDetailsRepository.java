@@ -1,50 +1,305 @@
 package com.mahmoud.movieChecker.repository;
 
 import com.mahmoud.movieChecker.entity.MovieDetails;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
-public interface MovieDetailsRepository extends JpaRepository<MovieDetails, Long> {
+public interface MovieDetailsRepository extends JpaRepository<MovieDetails, Long>, JpaSpecificationExecutor<MovieDetails> {
     @Query("SELECT md FROM MovieDetails md")
     Set<MovieDetails> findAllMovieDetails();
 
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = MovieDetails.LOOKUP_CACHE_REGION)
+    })
     Optional<MovieDetails> findByTitleIgnoreCase(String movieTitle);
 
+    @Transactional(readOnly = true)
     @Query("SELECT md.title FROM MovieDetails md")
     List<String> findAllMoviesTitles();
 
+    // search and suggest may go on to store OMDb results, so only the local lookups are read-only.
+    @Transactional(readOnly = true)
     @Query(value = """
-            SELECT * FROM movie_checker.movie_details
+            SELECT md.* FROM movie_checker.movie_details md
+            LEFT JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
             WHERE
-                title ILIKE :q || '%'
-                OR movie_checker.similarity(title, CAST(:q AS text)) > 0.3
-                OR search_vector @@ websearch_to_tsquery(:q)
+                (
+                    md.title ILIKE :q || '%'
+                    OR md.title OPERATOR(movie_checker.%) CAST(:q AS text)
+                    OR md.search_vector @@ websearch_to_tsquery(:q)
+                )
+                AND (md.genre_mask & :genreMask) = :genreMask
             ORDER BY (
                 CASE
-                    WHEN title ILIKE :q THEN 3.0
-                    WHEN title ILIKE :q || '%' THEN 2.0
+                    WHEN md.title ILIKE :q THEN 3.0
+                    WHEN md.title ILIKE :q || '%' THEN 2.0
                     ELSE 0
                 END
                 +
                 GREATEST (
-                    movie_checker.similarity(title, CAST(:q AS text)),
-                    ts_rank_cd(search_vector, websearch_to_tsquery(:q))
+                    movie_checker.similarity(md.title, CAST(:q AS text)),
+                    ts_rank_cd(md.search_vector, websearch_to_tsquery(:q))
                 )
+                +
+                LN(1 + COALESCE(mp.watched_count + mp.favorite_count, 0)) / 10
             ) DESC
             LIMIT 20""", nativeQuery = true)
-    List<MovieDetails> search(@Param("q") String q);
+    List<MovieDetails> search(
+        @Param("q") String q,
+        @Param("genreMask") long genreMask
+    );
 
+    @Transactional(readOnly = true)
     @Query(value = """
-            SELECT title FROM movie_checker.movie_details
-            WHERE title ILIKE :q || '%'
-            ORDER BY title""", nativeQuery = true)
+            SELECT md.title FROM movie_checker.movie_details md
+            LEFT JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
+            WHERE LOWER(md.title) LIKE LOWER(:q) || '%'
+            ORDER BY COALESCE(mp.watched_count + mp.favorite_count, 0) DESC, md.title""", nativeQuery = true)
     List<String> suggest(@Param("q") String q);
 
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = MovieDetails.LOOKUP_CACHE_REGION)
+    })
     @Query("SELECT md FROM MovieDetails md WHERE md.imdbId = :imdbId")
     Optional<MovieDetails> findByImdbId(@Param("imdbId") String imdbId);
+
+    @Query(value = """
+            SELECT md.* FROM movie_checker.movie_details md
+            JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
+            WHERE mp.watched_count > 0
+            ORDER BY mp.watched_count DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<MovieDetails> findMostWatched(@Param("limit") int limit);
+
+    @Query(value = """
+            SELECT md.* FROM movie_checker.movie_details md
+            JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
+            WHERE mp.favorite_count > 0
+            ORDER BY mp.favorite_count DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<MovieDetails> findMostFavorited(@Param("limit") int limit);
+
+    @Query(value = """
+            SELECT md.* FROM movie_checker.movie_details md
+            JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
+            WHERE mp.rated_count >= :minRatings
+            ORDER BY mp.user_rate_sum / mp.rated_count DESC, mp.rated_count DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<MovieDetails> findTopRated(
+        @Param("minRatings") int minRatings,
+        @Param("limit") int limit
+    );
+
+    @Query(value = """
+            SELECT md.* FROM movie_checker.movie_similarity ms
+            JOIN movie_checker.movie_details md ON md.id = ms.similar_movie_details_id
+            WHERE ms.movie_details_id = :movieId
+            ORDER BY ms.rank""", nativeQuery = true)
+    List<MovieDetails> findSimilar(@Param("movieId") Long movieId);
+
+    // Rows as (year, type, genre_mask, imdb_rate, movies_count), -1 / '' standing for missing values.
+    @Query(value = """
+            SELECT year, type, genre_mask, imdb_rate, movies_count
+            FROM movie_checker.movie_facet_summary""", nativeQuery = true)
+    List<Object[]> findFacetSummary();
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.movie_facet_summary"))
+    @Query(value = "REFRESH MATERIALIZED VIEW CONCURRENTLY movie_checker.movie_facet_summary", nativeQuery = true)
+    void refreshFacetSummary();
+
+    // Movies fetched from OMDb today, by ingest or refresh.
+    @Query(value = """
+            SELECT COUNT(*) FROM movie_checker.movie_details
+            WHERE last_refreshed_at >= date_trunc('day', now())""", nativeQuery = true)
+    long countRefreshedToday();
+
+    // Rows as (id, imdb_id), the most watched and favorited first, then the longest unrefreshed. Those are
+    // among the most popular stale movies or the oldest ones, each taken from its index up to the limit.
+    @Query(value = """
+            SELECT id, imdb_id FROM (
+                (
+                    SELECT md.id, md.imdb_id, mp.watched_count + mp.favorite_count AS popularity, md.last_refreshed_at
+                    FROM movie_checker.movie_popularity mp
+                    JOIN movie_checker.movie_details md ON md.id = mp.movie_details_id
+                    WHERE mp.watched_count + mp.favorite_count > 0
+                        AND (
+                            md.last_refreshed_at IS NULL
+                            OR md.last_refreshed_at < now() - make_interval(secs => :staleAfterSeconds)
+                        )
+                    ORDER BY mp.watched_count + mp.favorite_count DESC
+                    LIMIT :limit
+                )
+                UNION
+                (
+                    SELECT md.id, md.imdb_id, COALESCE(mp.watched_count + mp.favorite_count, 0), md.last_refreshed_at
+                    FROM movie_checker.movie_details md
+                    LEFT JOIN movie_checker.movie_popularity mp ON mp.movie_details_id = md.id
+                    WHERE md.last_refreshed_at IS NULL
+                        OR md.last_refreshed_at < now() - make_interval(secs => :staleAfterSeconds)
+                    ORDER BY md.last_refreshed_at NULLS FIRST
+                    LIMIT :limit
+                )
+            ) candidates
+            ORDER BY popularity DESC, last_refreshed_at NULLS FIRST
+            LIMIT :limit""", nativeQuery = true)
+    List<Object[]> findStale(
+        @Param("staleAfterSeconds") long staleAfterSeconds,
+        @Param("limit") int limit
+    );
+
+    // Missing values keep what is stored, a movie OMDb no longer knows is only marked as refreshed. Returns the
+    // ids of the updated rows. A query for the same reason as upsertAll, the caller evicts just these movies.
+    @Transactional
+    @Query(value = """
+            UPDATE movie_checker.movie_details AS md SET
+                imdb_rate = COALESCE(r.imdb_rate, md.imdb_rate),
+                runtime = COALESCE(r.runtime, md.runtime),
+                overview = COALESCE(r.overview, md.overview),
+                last_refreshed_at = now()
+            FROM unnest(
+                CAST(:ids AS bigint[]),
+                CAST(:imdbRates AS numeric[]),
+                CAST(:runtimes AS text[]),
+                CAST(:overviews AS text[])
+            ) AS r(id, imdb_rate, runtime, overview)
+            WHERE md.id = r.id
+            RETURNING md.id""", nativeQuery = true)
+    List<Long> applyRefresh(
+        @Param("ids") Long[] ids,
+        @Param("imdbRates") Double[] imdbRates,
+        @Param("runtimes") String[] runtimes,
+        @Param("overviews") String[] overviews
+    );
+
+    // A query rather than a @Modifying statement: Hibernate clears the cache regions behind a native statement's
+    // spaces, all of movie-details here. Callers invalidate just the cached lookups with MovieLookupCacheService.
+    @Transactional
+    @Query(value = """
+            INSERT INTO movie_checker.movie_details
+                (imdb_id, title, year, poster_url, genre, genre_mask, type, overview, runtime, imdb_rate)
+            SELECT * FROM unnest(
+                CAST(:imdbIds AS text[]),
+                CAST(:titles AS text[]),
+                CAST(:years AS smallint[]),
+                CAST(:posterUrls AS text[]),
+                CAST(:genres AS text[]),
+                CAST(:genreMasks AS bigint[]),
+                CAST(:types AS text[]),
+                CAST(:overviews AS text[]),
+                CAST(:runtimes AS text[]),
+                CAST(:imdbRates AS numeric[])
+            )
+            ON CONFLICT (imdb_id) DO NOTHING
+            RETURNING id""", nativeQuery = true)
+    List<Long> upsertAll(
+        @Param("imdbIds") String[] imdbIds,
+        @Param("titles") String[] titles,
+        @Param("years") Integer[] years,
+        @Param("posterUrls") String[] posterUrls,
+        @Param("genres") String[] genres,
+        @Param("genreMasks") Long[] genreMasks,
+        @Param("types") String[] types,
+        @Param("overviews") String[] overviews,
+        @Param("runtimes") String[] runtimes,
+        @Param("imdbRates") Double[] imdbRates
+    );
+
+    // Inserts the movie unless its imdb id is already stored and returns the stored row, in one statement. Rows as
+    // (movie, inserted), empty when a concurrent insert of the same movie committed after the statement started.
+    @Transactional
+    @NativeQuery(value = """
+            WITH ins AS (
+                INSERT INTO movie_checker.movie_details
+                    (imdb_id, title, year, poster_url, genre, genre_mask, type, overview, runtime, imdb_rate)
+                VALUES (
+                    CAST(:imdbId AS text),
+                    CAST(:title AS text),
+                    CAST(:year AS smallint),
+                    CAST(:posterUrl AS text),
+                    CAST(:genre AS text),
+                    CAST(:genreMask AS bigint),
+                    CAST(:type AS text),
+                    CAST(:overview AS text),
+                    CAST(:runtime AS text),
+                    CAST(:imdbRate AS numeric)
+                )
+                ON CONFLICT (imdb_id) DO NOTHING
+                RETURNING *
+            )
+            SELECT ins.*, true AS inserted FROM ins
+            UNION ALL
+            SELECT md.*, false AS inserted FROM movie_checker.movie_details md
+            WHERE md.imdb_id = CAST(:imdbId AS text) AND NOT EXISTS (SELECT 1 FROM ins)""",
+        sqlResultSetMapping = MovieDetails.STORED_RESULT)
+    List<Object[]> store(
+        @Param("imdbId") String imdbId,
+        @Param("title") String title,
+        @Param("year") Integer year,
+        @Param("posterUrl") String posterUrl,
+        @Param("genre") String genre,
+        @Param("genreMask") Long genreMask,
+        @Param("type") String type,
+        @Param("overview") String overview,
+        @Param("runtime") String runtime,
+        @Param("imdbRate") Double imdbRate
+    );
+
+    default List<Object[]> store(MovieDetails movie) {
+        return store(
+            movie.getImdbId(),
+            movie.getTitle(),
+            movie.getYear(),
+            movie.getPosterUrl(),
+            movie.getGenre(),
+            (movie.getGenreMask() == null)? 0L : movie.getGenreMask(),
+            movie.getType(),
+            movie.getOverview(),
+            movie.getRuntime(),
+            movie.getImdbRate()
+        );
+    }
+
+    // Inserts the movies in one statement, leaving the rows whose imdb id is already stored untouched. Returns the ids of the inserted rows.
+    default List<Long> upsertAll(Collection<MovieDetails> movies) {
+        Map<String, MovieDetails> moviesByImdbId = new LinkedHashMap<>();
+        movies.forEach(movie -> moviesByImdbId.putIfAbsent(movie.getImdbId(), movie));
+
+        List<MovieDetails> uniqueMovies = List.copyOf(moviesByImdbId.values());
+
+        if (uniqueMovies.isEmpty()) {
+            return List.of();
+        }
+
+        return upsertAll(
+            uniqueMovies.stream().map(MovieDetails::getImdbId).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getTitle).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getYear).toArray(Integer[]::new),
+            uniqueMovies.stream().map(MovieDetails::getPosterUrl).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getGenre).toArray(String[]::new),
+            uniqueMovies.stream().map(movie -> (movie.getGenreMask() == null)? 0L : movie.getGenreMask()).toArray(Long[]::new),
+            uniqueMovies.stream().map(MovieDetails::getType).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getOverview).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getRuntime).toArray(String[]::new),
+            uniqueMovies.stream().map(MovieDetails::getImdbRate).toArray(Double[]::new)
+        );
+    }
 }
@@ -0,0 +1,53 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class MovieDetailsSpecifications {
+    private MovieDetailsSpecifications() {
+    }
+
+    public static Specification<MovieDetails> idGreaterThan(Long afterId) {
+        return (root, query, cb) -> (afterId == null)? null : cb.greaterThan(root.get("id"), afterId);
+    }
+
+    // Keyset on (attribute, id): movies after the given one in that order. The OR can't bound an index scan,
+    // the redundant attribute >= afterValue does, so a page only skips the seen rows sharing afterValue.
+    public static <T extends Comparable<? super T>> Specification<MovieDetails> after(String attribute, T afterValue, Long afterId) {
+        return (root, query, cb) -> (afterId == null)? null : cb.and(
+            cb.greaterThanOrEqualTo(root.get(attribute), afterValue),
+            cb.or(
+                cb.greaterThan(root.get(attribute), afterValue),
+                cb.and(cb.equal(root.get(attribute), afterValue), cb.greaterThan(root.get("id"), afterId))
+            )
+        );
+    }
+
+    public static Specification<MovieDetails> yearFrom(Integer year) {
+        return (root, query, cb) -> (year == null)? null : cb.greaterThanOrEqualTo(root.get("year"), year);
+    }
+
+    public static Specification<MovieDetails> yearTo(Integer year) {
+        return (root, query, cb) -> (year == null)? null : cb.lessThanOrEqualTo(root.get("year"), year);
+    }
+
+    public static Specification<MovieDetails> hasType(String type) {
+        return (root, query, cb) -> (type == null || type.isBlank())? null : cb.equal(root.get("type"), type.trim());
+    }
+
+    public static Specification<MovieDetails> imdbRateFrom(Double rate) {
+        return (root, query, cb) -> (rate == null)? null : cb.greaterThanOrEqualTo(root.get("imdbRate"), rate);
+    }
+
+    public static Specification<MovieDetails> imdbRateTo(Double rate) {
+        return (root, query, cb) -> (rate == null)? null : cb.lessThanOrEqualTo(root.get("imdbRate"), rate);
+    }
+
+    // Movies having every genre bit of the mask.
+    public static Specification<MovieDetails> hasGenres(long genreMask) {
+        return (root, query, cb) -> (genreMask == 0)? null : cb.equal(
+            cb.function("bitand", Long.class, root.get("genreMask"), cb.literal(genreMask)),
+            genreMask
+        );
+    }
+}
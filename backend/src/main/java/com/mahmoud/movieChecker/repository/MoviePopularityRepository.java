@@ -0,0 +1,41 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.MoviePopularity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface MoviePopularityRepository extends JpaRepository<MoviePopularity, Long> {
+    // Without declared spaces Hibernate assumes a native write touched every table and clears the
+    // whole second-level cache, the same hint is on every native write in the repositories.
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.movie_popularity"))
+    @Query(value = """
+            INSERT INTO movie_checker.movie_popularity AS p
+                (movie_details_id, watched_count, favorite_count, rated_count, user_rate_sum)
+            SELECT * FROM unnest(
+                CAST(:movieIds AS bigint[]),
+                CAST(:watched AS bigint[]),
+                CAST(:favorite AS bigint[]),
+                CAST(:rated AS bigint[]),
+                CAST(:userRateSums AS numeric[])
+            )
+            ON CONFLICT (movie_details_id) DO UPDATE SET
+                watched_count = p.watched_count + EXCLUDED.watched_count,
+                favorite_count = p.favorite_count + EXCLUDED.favorite_count,
+                rated_count = p.rated_count + EXCLUDED.rated_count,
+                user_rate_sum = p.user_rate_sum + EXCLUDED.user_rate_sum""", nativeQuery = true)
+    int addToPopularity(
+        @Param("movieIds") Long[] movieIds,
+        @Param("watched") Long[] watched,
+        @Param("favorite") Long[] favorite,
+        @Param("rated") Long[] rated,
+        @Param("userRateSums") Double[] userRateSums
+    );
+}
@@ -0,0 +1,53 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.MovieSimilarity;
+import com.mahmoud.movieChecker.entity.MovieSimilarityId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface MovieSimilarityRepository extends JpaRepository<MovieSimilarity, MovieSimilarityId> {
+    // The database's clock, shared by every instance, unlike the JVM's.
+    @Query(value = "SELECT LOCALTIMESTAMP", nativeQuery = true)
+    LocalDateTime currentTimestamp();
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.movie_similarity"))
+    @Query(value = """
+            INSERT INTO movie_checker.movie_similarity
+                (movie_details_id, rank, similar_movie_details_id, score, computed_at)
+            SELECT movie_details_id, rank, similar_movie_details_id, score, :computedAt
+            FROM unnest(
+                CAST(:movieIds AS bigint[]),
+                CAST(:ranks AS smallint[]),
+                CAST(:similarMovieIds AS bigint[]),
+                CAST(:scores AS real[])
+            ) AS r(movie_details_id, rank, similar_movie_details_id, score)
+            ON CONFLICT (movie_details_id, rank) DO UPDATE SET
+                similar_movie_details_id = EXCLUDED.similar_movie_details_id,
+                score = EXCLUDED.score,
+                computed_at = EXCLUDED.computed_at""", nativeQuery = true)
+    int upsertAll(
+        @Param("movieIds") Long[] movieIds,
+        @Param("ranks") Integer[] ranks,
+        @Param("similarMovieIds") Long[] similarMovieIds,
+        @Param("scores") Float[] scores,
+        @Param("computedAt") LocalDateTime computedAt
+    );
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.movie_similarity"))
+    @Query(value = """
+            DELETE FROM movie_checker.movie_similarity
+            WHERE computed_at < :computedAt""", nativeQuery = true)
+    int deleteAllComputedBefore(@Param("computedAt") LocalDateTime computedAt);
+}
@@ -4,15 +4,22 @@ import com.mahmoud.movieChecker.entity.MovieDetails;
 import com.mahmoud.movieChecker.entity.MovieStatus;
 import com.mahmoud.movieChecker.entity.User;
 import com.mahmoud.movieChecker.entity.UserMovies;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
+// The collection listings select only the user_movies rows; their MovieDetails come from the
+// second-level cache, with misses loaded in batches (see MovieDetails).
 public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
 
     @EntityGraph(attributePaths = "movieDetails")
@@ -36,7 +43,6 @@ public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
         @Param("user") User user
     );
 
-    @EntityGraph(attributePaths = "movieDetails")
     @Query("""
             SELECT um FROM UserMovies um
             WHERE um.user = :user""")
@@ -44,7 +50,6 @@ public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
         @Param("user") User user
     );
 
-    @EntityGraph(attributePaths = "movieDetails")
     @Query("""
             SELECT um FROM UserMovies um
             WHERE um.status = :status AND um.user = :user""")
@@ -53,7 +58,6 @@ public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
         @Param("user") User user
     );
 
-    @EntityGraph(attributePaths = "movieDetails")
     @Query("""
             SELECT um FROM UserMovies um
             WHERE um.isFavorite = :favorite AND um.user = :user""")
@@ -62,7 +66,6 @@ public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
         @Param("user") User user
     );
 
-    @EntityGraph(attributePaths = "movieDetails")
     @Query("""
             SELECT um FROM UserMovies um
             WHERE um.status = :status AND um.isFavorite = :favorite AND um.user = :user""")
@@ -71,4 +74,59 @@ public interface UserMoviesRepository extends JpaRepository<UserMovies, Long> {
         @Param("favorite") Boolean favorite,
         @Param("user") User user
     );
+
+    // Takes the deleted rows off the movies' popularity counters in the same statement, so the counters
+    // and the rows always change together. The chunk is locked first, its counts are the ones deleted.
+    @Modifying
+    @Transactional
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.user_movies"),
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.movie_popularity")
+    })
+    @Query(value = """
+            WITH chunk AS (
+                SELECT id, movie_details_id, status, is_favorite, user_rate FROM movie_checker.user_movies
+                WHERE user_id = :userId
+                LIMIT :limit
+                FOR UPDATE
+            ), subtracted AS (
+                UPDATE movie_checker.movie_popularity AS p SET
+                    watched_count = p.watched_count - d.watched_count,
+                    favorite_count = p.favorite_count - d.favorite_count,
+                    rated_count = p.rated_count - d.rated_count,
+                    user_rate_sum = p.user_rate_sum - d.user_rate_sum
+                FROM (
+                    SELECT
+                        movie_details_id,
+                        COUNT(*) FILTER (WHERE status = 'WATCHED') AS watched_count,
+                        COUNT(*) FILTER (WHERE is_favorite) AS favorite_count,
+                        COUNT(user_rate) AS rated_count,
+                        COALESCE(SUM(user_rate), 0) AS user_rate_sum
+                    FROM chunk
+                    GROUP BY movie_details_id
+                ) d
+                WHERE p.movie_details_id = d.movie_details_id
+            )
+            DELETE FROM movie_checker.user_movies
+            WHERE id IN (SELECT id FROM chunk)""", nativeQuery = true)
+    int deleteChunkByUserId(
+        @Param("userId") Long userId,
+        @Param("limit") int limit
+    );
+
+    @Query(value = """
+            SELECT COUNT(*) FROM movie_checker.user_movies
+            WHERE status = 'WATCHED' OR is_favorite""", nativeQuery = true)
+    long countInteractions();
+
+    // Rows as (id, user_id, movie_details_id) for the recommendation job, read in id keyset chunks.
+    @Query(value = """
+            SELECT id, user_id, movie_details_id FROM movie_checker.user_movies
+            WHERE id > :afterId AND (status = 'WATCHED' OR is_favorite)
+            ORDER BY id
+            LIMIT :limit""", nativeQuery = true)
+    List<Object[]> findInteractionsAfter(
+        @Param("afterId") Long afterId,
+        @Param("limit") int limit
+    );
 }
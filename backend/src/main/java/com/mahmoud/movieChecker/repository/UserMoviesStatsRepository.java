@@ -0,0 +1,89 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.dto.GenreCount;
+import com.mahmoud.movieChecker.dto.MonthCount;
+import com.mahmoud.movieChecker.entity.UserMoviesStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserMoviesStatsRepository extends JpaRepository<UserMoviesStats, Long> {
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.user_movies_stats"))
+    @Query(value = """
+            INSERT INTO movie_checker.user_movies_stats AS s
+                (user_id, watched_count, watch_list_count, favorite_count, rated_count, user_rate_sum, collection_version)
+            VALUES (:userId, :watched, :watchList, :favorite, :rated, :userRateSum, 1)
+            ON CONFLICT (user_id) DO UPDATE SET
+                collection_version = s.collection_version + 1,
+                watched_count = s.watched_count + EXCLUDED.watched_count,
+                watch_list_count = s.watch_list_count + EXCLUDED.watch_list_count,
+                favorite_count = s.favorite_count + EXCLUDED.favorite_count,
+                rated_count = s.rated_count + EXCLUDED.rated_count,
+                user_rate_sum = s.user_rate_sum + EXCLUDED.user_rate_sum""", nativeQuery = true)
+    void addToStats(
+        @Param("userId") Long userId,
+        @Param("watched") int watched,
+        @Param("watchList") int watchList,
+        @Param("favorite") int favorite,
+        @Param("rated") int rated,
+        @Param("userRateSum") double userRateSum
+    );
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.user_movies_genre_stats"))
+    @Query(value = """
+            INSERT INTO movie_checker.user_movies_genre_stats AS s (user_id, genre, movies_count)
+            SELECT :userId, genre, delta
+            FROM unnest(CAST(:genres AS text[]), CAST(:deltas AS int[])) AS d(genre, delta)
+            ON CONFLICT (user_id, genre) DO UPDATE SET
+                movies_count = s.movies_count + EXCLUDED.movies_count""", nativeQuery = true)
+    void addToGenreStats(
+        @Param("userId") Long userId,
+        @Param("genres") String[] genres,
+        @Param("deltas") Integer[] deltas
+    );
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "movie_checker.user_movies_monthly_stats"))
+    @Query(value = """
+            INSERT INTO movie_checker.user_movies_monthly_stats AS s (user_id, month, movies_count)
+            SELECT :userId, month, delta
+            FROM unnest(CAST(:months AS date[]), CAST(:deltas AS int[])) AS d(month, delta)
+            ON CONFLICT (user_id, month) DO UPDATE SET
+                movies_count = s.movies_count + EXCLUDED.movies_count""", nativeQuery = true)
+    void addToMonthlyStats(
+        @Param("userId") Long userId,
+        @Param("months") LocalDate[] months,
+        @Param("deltas") Integer[] deltas
+    );
+
+    @Query(value = """
+            SELECT genre, movies_count AS count FROM movie_checker.user_movies_genre_stats
+            WHERE user_id = :userId AND movies_count > 0
+            ORDER BY movies_count DESC, genre""", nativeQuery = true)
+    List<GenreCount> findGenreCounts(@Param("userId") Long userId);
+
+    @Query(value = """
+            SELECT month, movies_count AS count FROM movie_checker.user_movies_monthly_stats
+            WHERE user_id = :userId AND movies_count > 0
+            ORDER BY month""", nativeQuery = true)
+    List<MonthCount> findMonthCounts(@Param("userId") Long userId);
+
+    @Query(value = """
+            SELECT collection_version FROM movie_checker.user_movies_stats
+            WHERE user_id = :userId""", nativeQuery = true)
+    Optional<Long> findCollectionVersion(@Param("userId") Long userId);
+}
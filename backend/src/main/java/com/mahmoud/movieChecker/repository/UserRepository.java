@@ -3,13 +3,25 @@ package com.mahmoud.movieChecker.repository;
 import com.mahmoud.movieChecker.entity.Role;
 import com.mahmoud.movieChecker.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
 
     boolean existsByRole(Role role);
 
     boolean existsByEmail(String email);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            DELETE FROM User u
+            WHERE u.id = :userId""")
+    int deleteUserById(@Param("userId") Long userId);
 }
@@ -0,0 +1,45 @@
+package com.mahmoud.movieChecker.repository;
+
+import com.mahmoud.movieChecker.entity.Role;
+import com.mahmoud.movieChecker.entity.User;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class UserSpecifications {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> idGreaterThan(Long afterId) {
+        return (root, query, cb) -> (afterId == null)? null : cb.greaterThan(root.get("id"), afterId);
+    }
+
+    // Served by idx_users_email_lower_prefix.
+    public static Specification<User> emailStartsWith(String email) {
+        return (root, query, cb) -> (email == null || email.isBlank())? null : cb.like(
+            cb.lower(root.get("email")),
+            escapeLike(email.trim().toLowerCase()) + "%",
+            LIKE_ESCAPE
+        );
+    }
+
+    // Served by idx_users_name_lower_trgm.
+    public static Specification<User> nameContains(String name) {
+        return (root, query, cb) -> (name == null || name.isBlank())? null : cb.like(
+            cb.lower(root.get("name")),
+            "%" + escapeLike(name.trim().toLowerCase()) + "%",
+            LIKE_ESCAPE
+        );
+    }
+
+    public static Specification<User> hasRole(Role role) {
+        return (root, query, cb) -> (role == null)? null : cb.equal(root.get("role"), role);
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,29 @@
+package com.mahmoud.movieChecker.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caps how many requests to the annotated endpoints run at once, with a limit
+ * that adapts to their latency (settings in concurrency-limit.groups).
+ * Requests over it are shed with a 503 by ConcurrencyLimitInterceptor. A
+ * method annotation overrides the one on its controller.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdaptiveLimit {
+    Group value();
+
+    enum Group {
+        // Database plus OMDb round trips
+        SEARCH,
+        // BCrypt, CPU bound
+        LOGIN,
+        // Whole collection reads, batch loaded from the movie cache
+        COLLECTION,
+        // Long running bulk reads (the users export)
+        EXPORT
+    }
+}
@@ -0,0 +1,28 @@
+package com.mahmoud.movieChecker.security.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts the annotated endpoints under the per-client token bucket of their
+ * endpoint class (limits in rate-limit.limits). Checked by RateLimitInterceptor,
+ * a method annotation overrides the one on its controller.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+    Endpoint value();
+
+    enum Endpoint {
+        // Local search plus OMDb lookups, the most expensive per request
+        SEARCH,
+        // Called on every keystroke, cheap but frequent
+        SUGGEST,
+        // Browsing, leaderboards and similar movies
+        CATALOG,
+        // Poster images, a page loads many of them
+        POSTERS
+    }
+}
@@ -4,6 +4,8 @@ import com.mahmoud.movieChecker.config.JwtConfig;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -13,17 +15,21 @@ import java.util.Date;
 @AllArgsConstructor
 public class JwtService {
     private final JwtConfig jwtConfig;
+    private final MeterRegistry meterRegistry;
 
     public Jwt generateAccessToken(Token userToken) {
-        return generateToken(userToken, jwtConfig.getAccessTokenExpiration());
+        return meterRegistry.timer("moviechecker.jwt.generate", "type", "access")
+                .record(() -> generateToken(userToken, jwtConfig.getAccessTokenExpiration()));
     }
 
     public Jwt generateRefreshToken(Token userToken) {
-        return generateToken(userToken, jwtConfig.getRefreshTokenExpiration());
+        return meterRegistry.timer("moviechecker.jwt.generate", "type", "refresh")
+                .record(() -> generateToken(userToken, jwtConfig.getRefreshTokenExpiration()));
     }
 
     public Jwt generateResetToken(Token userToken) {
-        return generateToken(userToken, jwtConfig.getResetTokenExpiration());
+        return meterRegistry.timer("moviechecker.jwt.generate", "type", "reset")
+                .record(() -> generateToken(userToken, jwtConfig.getResetTokenExpiration()));
     }
 
     private Jwt generateToken(Token userToken, long tokenExpiration) {
@@ -40,11 +46,17 @@ public class JwtService {
     }
 
     public Jwt parseToken(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+
         try {
             Claims claims = getClaims(token);
+            outcome = "valid";
             return new Jwt(claims, jwtConfig.getSecretKey());
         } catch (JwtException e) {
             return null;
+        } finally {
+            sample.stop(meterRegistry.timer("moviechecker.jwt.parse", "outcome", outcome));
         }
     }
 
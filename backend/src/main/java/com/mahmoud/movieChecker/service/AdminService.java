@@ -5,10 +5,12 @@ import com.mahmoud.movieChecker.entity.User;
 import com.mahmoud.movieChecker.exception.UserNotFoundException;
 import com.mahmoud.movieChecker.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Lazy
 @AllArgsConstructor
 public class AdminService {
     private final UserRepository userRepository;
@@ -0,0 +1,97 @@
+package com.mahmoud.movieChecker.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Session-level Postgres advisory locks for jobs that must run on one
+ * instance at a time. The lock lives on a connection of its own, kept out of
+ * any transaction, so a job can hold it for minutes without pinning a
+ * snapshot; its work goes through the usual short transactions.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdvisoryLockService {
+    private final DataSource dataSource;
+
+    /**
+     * Returns the held lock, or null when another session holds it. Closing
+     * the lock releases it and returns the connection to the pool.
+     */
+    public Lock tryLock(long key) {
+        Connection connection;
+
+        try {
+            // Outside a transaction the connection comes from the primary, never a replica.
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Failed to take advisory lock " + key, e);
+        }
+
+        try {
+            connection.setAutoCommit(true);
+
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, key);
+
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next() && result.getBoolean(1)) {
+                        return new Lock(connection, key);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            close(connection);
+            throw new CannotGetJdbcConnectionException("Failed to take advisory lock " + key, e);
+        }
+
+        close(connection);
+        return null;
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Closing the advisory lock connection failed: {}", e.toString());
+        }
+    }
+
+    public static final class Lock implements AutoCloseable {
+        private final Connection connection;
+        private final long key;
+
+        private Lock(Connection connection, long key) {
+            this.connection = connection;
+            this.key = key;
+        }
+
+        // Should the unlock fail, the connection is dropped instead of pooled, ending the session drops the lock too.
+        @Override
+        public void close() {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                statement.setLong(1, key);
+                statement.execute();
+            } catch (SQLException e) {
+                log.warn("Releasing advisory lock {} failed, dropping its connection: {}", key, e.toString());
+
+                try {
+                    connection.abort(Runnable::run);
+                } catch (SQLException abortFailed) {
+                    log.warn("Dropping the advisory lock connection failed: {}", abortFailed.toString());
+                }
+            } finally {
+                AdvisoryLockService.close(connection);
+            }
+        }
+    }
+}
@@ -42,13 +42,17 @@ public class AuthService {
     private final UserMapper userMapper;
 
     public User getCurrentUser() {
+        return userRepository.findById(getCurrentUserId()).orElseThrow(UserNotFoundException::new);
+    }
+
+    public Long getCurrentUserId() {
         var principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
         if (!(principal instanceof CustomUserDetails customUserDetails)) {
             throw new UnauthorizedUserException();
         }
 
-        return userRepository.findById(customUserDetails.getId()).orElseThrow(UserNotFoundException::new);
+        return customUserDetails.getId();
     }
 
     public JwtResponse login(LoginUserRequest loginRequest, HttpServletResponse response) {
@@ -0,0 +1,81 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.CatalogVersion;
+import com.mahmoud.movieChecker.repository.CatalogVersionRepository;
+import com.mahmoud.movieChecker.repository.UserMoviesStatsRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneId;
+
+/**
+ * Cheap version markers for conditional GETs, read with a single primary key lookup
+ * so unchanged responses can be answered with 304 before any entity is loaded.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class CacheVersionService {
+    private static final int CATALOG_VERSION_ID = 1;
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final UserMoviesStatsRepository userMoviesStatsRepository;
+
+    public record Version(String eTag, long lastModified) {}
+
+    public Version getCatalogVersion() {
+        CatalogVersion catalogVersion = catalogVersionRepository.findById(CATALOG_VERSION_ID)
+                .orElseGet(() -> new CatalogVersion(CATALOG_VERSION_ID, 0L, null));
+
+        long lastModified = (catalogVersion.getUpdatedAt() == null)?
+                -1 : catalogVersion.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        return new Version("\"c" + catalogVersion.getVersion() + "\"", lastModified);
+    }
+
+    /**
+     * Called by the catalog writers when a write changed rows. The version is
+     * bumped once the write commits, in a short transaction of its own, so
+     * writers never queue behind the version row while theirs is open. A
+     * failed bump only leaves the old ETag until the next change, so it
+     * doesn't fail the write.
+     */
+    public void catalogChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpCatalogVersion();
+                }
+            });
+        } else {
+            bumpCatalogVersion();
+        }
+    }
+
+    private void bumpCatalogVersion() {
+        try {
+            catalogVersionRepository.bump(CATALOG_VERSION_ID);
+        } catch (RuntimeException e) {
+            log.warn("Bumping the catalog version failed, cached catalog responses stay valid until the next change.", e);
+        }
+    }
+
+    // The user id is part of the tag since every user reads their collection from the same URL.
+    public String getCollectionETag(Long userId) {
+        Long version = userMoviesStatsRepository.findCollectionVersion(userId).orElse(0L);
+
+        return "\"u" + userId + "-v" + version + "\"";
+    }
+
+    // For responses that embed the movies' details as well, which change with the catalog.
+    public String getCollectionWithMoviesETag(Long userId) {
+        Long version = userMoviesStatsRepository.findCollectionVersion(userId).orElse(0L);
+        Long catalogVersion = catalogVersionRepository.findById(CATALOG_VERSION_ID).map(CatalogVersion::getVersion).orElse(0L);
+
+        return "\"u" + userId + "-v" + version + "-c" + catalogVersion + "\"";
+    }
+}
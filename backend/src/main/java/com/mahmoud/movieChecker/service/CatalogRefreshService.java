@@ -0,0 +1,193 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.CatalogRefreshProperties;
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.exception.MovieNotFoundException;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps the OMDb metadata that changes over time (rating, runtime, plot)
+ * fresh in the background, so reads never wait on OMDb. Each run refreshes a
+ * batch of stale movies, the most watched and favorited first, at a fixed
+ * request rate and within a daily request limit, writing the results every
+ * few movies.
+ *
+ * <p>A run holds a session-level advisory lock, so with several instances
+ * only one refreshes at a time and the shared OMDb quota isn't spent twice.
+ * OMDb is called outside any transaction, each write is a short transaction
+ * of its own.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogRefreshService {
+    // Any value works, as long as nothing else takes this advisory lock.
+    private static final long REFRESH_LOCK_KEY = 4_047_001L;
+
+    private final CatalogRefreshProperties properties;
+    private final MovieDetailsRepository movieDetailsRepository;
+    private final MovieDetailsService movieDetailsService;
+    private final AdvisoryLockService advisoryLockService;
+    private final CacheVersionService cacheVersionService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(
+        initialDelayString = "${catalog-refresh.interval-seconds:300}",
+        fixedDelayString = "${catalog-refresh.interval-seconds:300}",
+        timeUnit = TimeUnit.SECONDS
+    )
+    public void refreshStaleMovies() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try (AdvisoryLockService.Lock lock = advisoryLockService.tryLock(REFRESH_LOCK_KEY)) {
+            if (lock != null) {
+                refreshBatch();
+            }
+        }
+    }
+
+    private void refreshBatch() {
+        long remainingToday = properties.getDailyRequestLimit() - movieDetailsRepository.countRefreshedToday();
+        int limit = (int) Math.min(properties.getBatchSize(), remainingToday);
+
+        if (limit <= 0) {
+            return;
+        }
+
+        List<Object[]> stale = movieDetailsRepository.findStale(properties.getStaleAfter().toSeconds(), limit);
+
+        RefreshedBatch batch = new RefreshedBatch();
+        int refreshed = 0;
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRequestsPerSecond());
+        long nextRequest = System.nanoTime();
+
+        for (Object[] row : stale) {
+            if (!waitUntil(nextRequest)) {
+                break;
+            }
+
+            nextRequest = System.nanoTime() + interval;
+
+            Long id = ((Number) row[0]).longValue();
+            String imdbId = (String) row[1];
+
+            try {
+                MovieDetails fresh = movieDetailsService.retrieveMovieDetailsFromOmdbByImdbId(imdbId);
+
+                batch.add(id, fresh.getImdbRate(), valueOrNull(fresh.getRuntime()), valueOrNull(fresh.getOverview()));
+                count("refreshed");
+            } catch (MovieNotFoundException e) {
+                // Marked as refreshed anyway, or it would come up again on every run.
+                batch.add(id, null, null, null);
+                count("not_found");
+            } catch (RuntimeException e) {
+                // OMDb is failing or out of quota, the rest waits for the next run.
+                log.warn("Refreshing {} from OMDb failed, stopping this run: {}", imdbId, e.toString());
+                count("error");
+                break;
+            }
+
+            if (batch.size() >= properties.getWriteBatchSize()) {
+                refreshed += write(batch);
+            }
+        }
+
+        refreshed += write(batch);
+
+        if (refreshed > 0) {
+            log.info("Refreshed OMDb metadata of {} of {} stale movies.", refreshed, stale.size());
+        }
+    }
+
+    // One short transaction per call (applyRefresh is transactional), the batch is empty again afterwards.
+    private int write(RefreshedBatch batch) {
+        if (batch.size() == 0) {
+            return 0;
+        }
+
+        List<Long> updated = movieDetailsRepository.applyRefresh(
+            batch.ids.toArray(Long[]::new),
+            batch.imdbRates.toArray(Double[]::new),
+            batch.runtimes.toArray(String[]::new),
+            batch.overviews.toArray(String[]::new)
+        );
+
+        // Committed by now. Only these movies changed, the rest of the cache stays warm.
+        for (Long id : updated) {
+            entityManagerFactory.getCache().evict(MovieDetails.class, id);
+        }
+
+        if (!updated.isEmpty()) {
+            cacheVersionService.catalogChanged();
+        }
+
+        int written = batch.size();
+        batch.clear();
+
+        return written;
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("moviechecker.catalog.refresh", "result", result).increment();
+    }
+
+    // False when interrupted (shutdown), what was fetched so far is still written.
+    private static boolean waitUntil(long deadline) {
+        long remaining;
+
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // OMDb answers "N/A" for missing fields, which shouldn't replace what is stored.
+    private static String valueOrNull(String value) {
+        return value == null || value.equals("N/A") ? null : value;
+    }
+
+    private static final class RefreshedBatch {
+        private final List<Long> ids = new ArrayList<>();
+        private final List<Double> imdbRates = new ArrayList<>();
+        private final List<String> runtimes = new ArrayList<>();
+        private final List<String> overviews = new ArrayList<>();
+
+        void add(Long id, Double imdbRate, String runtime, String overview) {
+            ids.add(id);
+            imdbRates.add(imdbRate);
+            runtimes.add(runtime);
+            overviews.add(overview);
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        void clear() {
+            ids.clear();
+            imdbRates.clear();
+            runtimes.clear();
+            overviews.clear();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.ConcurrencyLimitProperties;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One adaptive concurrency limit per {@link AdaptiveLimit.Group}, in the
+ * style of Netflix's Gradient2 limiter.
+ *
+ * <p>Completed requests are averaged per window into a short term latency,
+ * and windows feed a slow moving long term latency. As long as the two stay
+ * within the tolerance the limit creeps up by about its square root per
+ * window, once the short term latency pulls away the limit is scaled down by
+ * their ratio (at most halved per window). The limit only grows while the
+ * group actually used more than half of it. A window with failed requests
+ * (5xx, e.g. Hikari timeouts) or an average above the group's max latency
+ * multiplies it by the backoff ratio instead, AIMD style: the gradient alone
+ * would settle on whatever latency it first saw, even an overloaded one.
+ * After a long overload the long term latency is pulled down towards the
+ * recovered short term one rather than waiting for the average.
+ *
+ * <p>Taking a slot is one CAS on the in-flight count, nothing waits: a
+ * request over the limit is shed right away. Only the window bookkeeping on
+ * completion takes a lock.
+ *
+ * <p>Meters: moviechecker.concurrency.requests (group, result = accepted,
+ * shed) and the gauges moviechecker.concurrency.limit and
+ * moviechecker.concurrency.inflight (group).
+ */
+@Service
+public class ConcurrencyLimitService {
+    private static final Permit UNLIMITED = new Permit(null, 0);
+
+    private final ConcurrencyLimitProperties properties;
+    private final Map<AdaptiveLimit.Group, Limiter> limiters = new EnumMap<>(AdaptiveLimit.Group.class);
+
+    public ConcurrencyLimitService(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        for (AdaptiveLimit.Group group : AdaptiveLimit.Group.values()) {
+            ConcurrencyLimitProperties.Limit limit = properties.getGroups().get(group);
+
+            if (limit == null || limit.getMin() < 1 || limit.getMin() > limit.getInitial() || limit.getInitial() > limit.getMax()) {
+                throw new IllegalStateException("concurrency-limit.groups." + group.name().toLowerCase() + " needs 1 <= min <= initial <= max");
+            }
+
+            Limiter limiter = new Limiter(limit, properties, meterRegistry, group);
+            String name = group.name().toLowerCase();
+
+            Gauge.builder("moviechecker.concurrency.limit", limiter, Limiter::limit)
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("moviechecker.concurrency.inflight", limiter, Limiter::inFlight)
+                    .tag("group", name)
+                    .register(meterRegistry);
+
+            limiters.put(group, limiter);
+        }
+    }
+
+    /**
+     * Takes a slot in the group, or returns null when it is at its limit and
+     * the request should be shed. The permit must be released exactly once.
+     */
+    public Permit tryAcquire(AdaptiveLimit.Group group) {
+        if (!properties.isEnabled()) {
+            return UNLIMITED;
+        }
+
+        Limiter limiter = limiters.get(group);
+
+        return limiter.tryAcquire() ? new Permit(limiter, System.nanoTime()) : null;
+    }
+
+    public static final class Permit {
+        private final Limiter limiter;
+        private final long startedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Limiter limiter, long startedAt) {
+            this.limiter = limiter;
+            this.startedAt = startedAt;
+        }
+
+        // Frees the slot and feeds the request's latency (and whether it failed) into the limit.
+        public void release(boolean failed) {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.release(startedAt, System.nanoTime(), failed, true);
+            }
+        }
+
+        // Frees the slot without a sample, for requests whose duration says nothing about load (event streams, exports).
+        public void releaseWithoutSample() {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.release(startedAt, System.nanoTime(), false, false);
+            }
+        }
+    }
+
+    static final class Limiter {
+        // Windows averaged into the long term latency.
+        private static final double LONG_TERM_WINDOWS = 60;
+
+        private final int min;
+        private final int max;
+        private final long maxLatencyNanos;
+        private final long windowNanos;
+        private final int minWindowSamples;
+        private final double tolerance;
+        private final double smoothing;
+        private final double backoffRatio;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter accepted;
+        private final Counter shed;
+
+        // Read without the lock by tryAcquire, written under it.
+        private volatile double limit;
+
+        private long windowStart = System.nanoTime();
+        private long windowLatency;
+        private int windowSamples;
+        private int windowMaxInFlight;
+        private boolean windowFailed;
+        private double longTermLatency;
+
+        Limiter(ConcurrencyLimitProperties.Limit limit, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry, AdaptiveLimit.Group group) {
+            this.min = limit.getMin();
+            this.max = limit.getMax();
+            this.maxLatencyNanos = limit.getMaxLatency().toNanos();
+            this.limit = limit.getInitial();
+            this.windowNanos = properties.getWindow().toNanos();
+            this.minWindowSamples = Math.max(1, properties.getMinWindowSamples());
+            this.tolerance = properties.getTolerance();
+            this.smoothing = properties.getSmoothing();
+            this.backoffRatio = properties.getBackoffRatio();
+
+            String name = group.name().toLowerCase();
+            this.accepted = meterRegistry.counter("moviechecker.concurrency.requests", "group", name, "result", "accepted");
+            this.shed = meterRegistry.counter("moviechecker.concurrency.requests", "group", name, "result", "shed");
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+
+                if (current >= (int) limit) {
+                    shed.increment();
+                    return false;
+                }
+
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    accepted.increment();
+                    return true;
+                }
+            }
+        }
+
+        // The in-flight count is read before the decrement, so a window remembers how busy the group was.
+        void release(long startedAt, long now, boolean failed, boolean sampled) {
+            int busy = inFlight.getAndDecrement();
+
+            if (!sampled) {
+                return;
+            }
+
+            synchronized (this) {
+                windowLatency += now - startedAt;
+                windowSamples++;
+                windowMaxInFlight = Math.max(windowMaxInFlight, busy);
+                windowFailed |= failed;
+
+                if (now - windowStart < windowNanos || windowSamples < minWindowSamples) {
+                    return;
+                }
+
+                limit = Math.max(min, Math.min(max, nextLimit((double) windowLatency / windowSamples)));
+
+                windowStart = now;
+                windowLatency = 0;
+                windowSamples = 0;
+                windowMaxInFlight = 0;
+                windowFailed = false;
+            }
+        }
+
+        private double nextLimit(double shortTermLatency) {
+            if (windowFailed || shortTermLatency > maxLatencyNanos) {
+                return limit * backoffRatio;
+            }
+
+            longTermLatency = longTermLatency == 0
+                    ? shortTermLatency
+                    : longTermLatency + (shortTermLatency - longTermLatency) * (2 / (LONG_TERM_WINDOWS + 1));
+
+            if (longTermLatency / shortTermLatency > 2) {
+                longTermLatency *= 0.95;
+            }
+
+            // Not enough traffic to tell whether a higher limit would hold up.
+            if (windowMaxInFlight < limit / 2) {
+                return limit;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermLatency / shortTermLatency));
+            double next = limit * gradient + Math.sqrt(limit);
+
+            return limit * (1 - smoothing) + next * smoothing;
+        }
+
+        int limit() {
+            return (int) limit;
+        }
+
+        int inFlight() {
+            return inFlight.get();
+        }
+    }
+}
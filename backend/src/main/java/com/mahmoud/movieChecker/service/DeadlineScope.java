@@ -0,0 +1,174 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.monitoring.QueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the subtasks of one request on their own virtual threads under a shared
+ * deadline, hands them back in completion order and interrupts whatever is
+ * still running when closed. A small stand-in for StructuredTaskScope, which
+ * is still a preview API on Java 21.
+ *
+ * <p>JDBC work must go through {@link #forkUninterruptible}: interrupting a
+ * virtual thread blocked on a socket closes the socket, and with it the
+ * pooled connection. Those subtasks are left to finish on their own.
+ *
+ * <p>Only the thread that opened the scope may fork and take results, any
+ * thread may cancel. The statements a subtask runs count towards the forking
+ * thread's {@link QueryCounter}, and so towards the request's query budget. Each subtask is timed as moviechecker.search.stage
+ * (stage, outcome).
+ */
+final class DeadlineScope implements AutoCloseable {
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("movie-search-", 0).factory();
+
+    private final long deadline;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(THREADS);
+    private final BlockingQueue<Subtask<?>> completed = new LinkedBlockingQueue<>();
+    private final List<Subtask<?>> interruptible = new ArrayList<>();
+
+    // Queued by cancel() to wake up next().
+    private final Subtask<?> cancelled = new Subtask<>("cancelled", () -> null);
+
+    private int pending;
+    private String outcome = "complete";
+
+    DeadlineScope(Duration timeout, MeterRegistry meterRegistry) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    <T> Subtask<T> fork(String stage, Callable<T> task) {
+        Subtask<T> subtask = forkUninterruptible(stage, task);
+
+        interruptible.add(subtask);
+
+        return subtask;
+    }
+
+    <T> Subtask<T> forkUninterruptible(String stage, Callable<T> task) {
+        Callable<T> counted = QueryCounter.propagate(task);
+        Subtask<T> subtask = new Subtask<>(stage, () -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+
+            try {
+                T result = counted.call();
+                outcome = "success";
+
+                return result;
+            } catch (InterruptedException e) {
+                outcome = "cancelled";
+                throw e;
+            } catch (Exception e) {
+                outcome = Thread.currentThread().isInterrupted() ? "cancelled" : "error";
+                throw e;
+            } finally {
+                sample.stop(meterRegistry.timer("moviechecker.search.stage", "stage", stage, "outcome", outcome));
+            }
+        });
+
+        executor.execute(subtask);
+        pending++;
+
+        return subtask;
+    }
+
+    // The next finished subtask, or null once every subtask is done, the deadline has passed or the scope was cancelled.
+    Subtask<?> next() {
+        if (pending == 0 || !outcome.equals("complete")) {
+            return null;
+        }
+
+        try {
+            Subtask<?> subtask = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            if (subtask == null) {
+                outcome = "deadline";
+                return null;
+            }
+
+            if (subtask == cancelled) {
+                outcome = "cancelled";
+                return null;
+            }
+
+            pending--;
+
+            return subtask;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "cancelled";
+
+            return null;
+        }
+    }
+
+    // Makes next() give up, e.g. when the client went away.
+    void cancel() {
+        completed.add(cancelled);
+    }
+
+    // complete, deadline or cancelled
+    String outcome() {
+        return outcome;
+    }
+
+    // Doesn't wait for the subtasks, the uninterruptible ones finish on their own.
+    @Override
+    public void close() {
+        for (Subtask<?> subtask : interruptible) {
+            subtask.cancel(true);
+        }
+
+        executor.shutdown();
+    }
+
+    // Queued from done(), so a subtask taken from the queue always has its result or exception set.
+    final class Subtask<T> extends FutureTask<T> {
+        private final String stage;
+
+        private Subtask(String stage, Callable<T> task) {
+            super(task);
+            this.stage = stage;
+        }
+
+        String stage() {
+            return stage;
+        }
+
+        boolean succeeded() {
+            return state() == State.SUCCESS;
+        }
+
+        boolean failed() {
+            return state() == State.FAILED;
+        }
+
+        T result() {
+            return resultNow();
+        }
+
+        Throwable exception() {
+            return exceptionNow();
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.mahmoud.movieChecker.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
@@ -13,6 +15,7 @@ public class EmailService {
     private String appEmail;
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
 
     public void sendEmail(String to, String subject, String text) {
         SimpleMailMessage mailMessage = new SimpleMailMessage();
@@ -21,6 +24,14 @@ public class EmailService {
         mailMessage.setSubject(subject);
         mailMessage.setText(text);
 
-        mailSender.send(mailMessage);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            mailSender.send(mailMessage);
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("moviechecker.email.send", "outcome", outcome));
+        }
     }
 }
@@ -0,0 +1,151 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.Genre;
+import com.mahmoud.movieChecker.exception.InvalidRequestDataException;
+import com.mahmoud.movieChecker.repository.GenreRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory genre dictionary: every genre owns one bit of movie_details.genre_mask,
+ * so genre filters become integer bit operations instead of string scans.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GenreService {
+    private static final int MAX_GENRES = 63;
+    private static final int REGISTER_ATTEMPTS = 3;
+
+    private final GenreRepository genreRepository;
+
+    private final Map<String, Integer> genreIds = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> genreNames = new AtomicReferenceArray<>(MAX_GENRES);
+    // Not synchronized: registering runs statements, which would pin a virtual thread to its carrier.
+    private final ReentrantLock registerLock = new ReentrantLock();
+
+    @PostConstruct
+    public void loadGenres() {
+        genreRepository.findAll().forEach(this::cache);
+    }
+
+    // Mask of a comma separated OMDb genre list, registering genres seen for the first time.
+    public long maskOf(String genreList) {
+        long mask = 0;
+
+        for (String name : splitGenres(genreList)) {
+            Integer id = genreIds.get(name);
+
+            if (id == null) {
+                id = registerGenre(name);
+            }
+
+            if (id != null) {
+                mask |= 1L << id;
+            }
+        }
+
+        return mask;
+    }
+
+    // Mask matching movies that have all the given genres, 0 when no filter is given.
+    public long filterMaskOf(String genreList) {
+        long mask = 0;
+
+        for (String name : splitGenres(genreList)) {
+            Integer id = genreIds.get(name);
+
+            if (id == null) {
+                throw new InvalidRequestDataException("Unknown genre: " + name);
+            }
+
+            mask |= 1L << id;
+        }
+
+        return mask;
+    }
+
+    public List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>(Long.bitCount(mask));
+
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int id = Long.numberOfTrailingZeros(remaining);
+
+            if (genreNames.get(id) == null) {
+                loadGenres();
+            }
+
+            if (genreNames.get(id) != null) {
+                names.add(genreNames.get(id));
+            }
+        }
+
+        return names;
+    }
+
+    public List<String> getAllGenres() {
+        return genreIds.keySet().stream().sorted().toList();
+    }
+
+    private Integer registerGenre(String name) {
+        registerLock.lock();
+
+        try {
+            for (int attempt = 0; attempt < REGISTER_ATTEMPTS; attempt++) {
+                Integer id = genreIds.get(name);
+
+                if (id != null) {
+                    return id;
+                }
+
+                genreRepository.insertIfAbsent(name);
+
+                Genre genre = genreRepository.findByName(name).orElse(null);
+
+                if (genre != null) {
+                    cache(genre);
+                    return genre.getId();
+                }
+            }
+        } finally {
+            registerLock.unlock();
+        }
+
+        log.warn("Genre '{}' was not registered, the dictionary may be full ({} genres).", name, MAX_GENRES);
+        return null;
+    }
+
+    private void cache(Genre genre) {
+        String name = genre.getName().intern();
+
+        genreNames.set(genre.getId(), name);
+        genreIds.put(name, genre.getId());
+    }
+
+    private List<String> splitGenres(String genreList) {
+        if (genreList == null || genreList.isBlank()) {
+            return List.of();
+        }
+
+        List<String> names = new ArrayList<>();
+
+        for (String name : genreList.split(",")) {
+            String trimmed = name.trim();
+
+            if (!trimmed.isEmpty() && !trimmed.equals("N/A") && !names.contains(trimmed)) {
+                names.add(trimmed);
+            }
+        }
+
+        return names;
+    }
+}
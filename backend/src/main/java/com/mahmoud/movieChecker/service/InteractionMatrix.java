@@ -0,0 +1,92 @@
+package com.mahmoud.movieChecker.service;
+
+import java.util.Arrays;
+
+/**
+ * Users x movies interaction matrix in compressed sparse row form, built only from primitive arrays.
+ * Movies and users are mapped to dense indexes through sorted id arrays, so there are no boxed maps.
+ */
+final class InteractionMatrix {
+    // Dense movie index -> movie_details.id
+    final long[] movieIds;
+
+    // Rows of userItems[userOffsets[u] .. userOffsets[u + 1]) hold the movie indexes of user u.
+    final int[] userOffsets;
+    final int[] userItems;
+
+    // Rows of itemUsers[itemOffsets[m] .. itemOffsets[m + 1]) hold the user indexes of movie m.
+    final int[] itemOffsets;
+    final int[] itemUsers;
+
+    private InteractionMatrix(long[] movieIds, int[] userOffsets, int[] userItems, int[] itemOffsets, int[] itemUsers) {
+        this.movieIds = movieIds;
+        this.userOffsets = userOffsets;
+        this.userItems = userItems;
+        this.itemOffsets = itemOffsets;
+        this.itemUsers = itemUsers;
+    }
+
+    int numItems() {
+        return movieIds.length;
+    }
+
+    int itemDegree(int item) {
+        return itemOffsets[item + 1] - itemOffsets[item];
+    }
+
+    // The (user, movie) pairs must be unique, which the user_movies unique constraint guarantees.
+    static InteractionMatrix of(long[] rowUserIds, long[] rowMovieIds, int rows) {
+        long[] userIds = sortedUnique(rowUserIds, rows);
+        long[] movieIds = sortedUnique(rowMovieIds, rows);
+
+        int[] rowUsers = new int[rows];
+        int[] rowItems = new int[rows];
+
+        for (int r = 0; r < rows; r++) {
+            rowUsers[r] = Arrays.binarySearch(userIds, rowUserIds[r]);
+            rowItems[r] = Arrays.binarySearch(movieIds, rowMovieIds[r]);
+        }
+
+        int[] userOffsets = new int[userIds.length + 1];
+        int[] userItems = new int[rows];
+        fillRows(rowUsers, rowItems, rows, userOffsets, userItems);
+
+        int[] itemOffsets = new int[movieIds.length + 1];
+        int[] itemUsers = new int[rows];
+        fillRows(rowItems, rowUsers, rows, itemOffsets, itemUsers);
+
+        return new InteractionMatrix(movieIds, userOffsets, userItems, itemOffsets, itemUsers);
+    }
+
+    // Counting sort of the pairs by their row index.
+    private static void fillRows(int[] rowKeys, int[] rowValues, int rows, int[] offsets, int[] values) {
+        for (int r = 0; r < rows; r++) {
+            offsets[rowKeys[r] + 1]++;
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+
+        for (int r = 0; r < rows; r++) {
+            values[next[rowKeys[r]]++] = rowValues[r];
+        }
+    }
+
+    private static long[] sortedUnique(long[] values, int size) {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.parallelSort(sorted);
+
+        int unique = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+
+        return Arrays.copyOf(sorted, unique);
+    }
+}
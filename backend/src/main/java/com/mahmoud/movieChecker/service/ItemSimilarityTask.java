@@ -0,0 +1,197 @@
+package com.mahmoud.movieChecker.service;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the top-N cosine neighbors of a range of movies over an {@link InteractionMatrix},
+ * splitting the range across the fork-join pool.
+ */
+final class ItemSimilarityTask extends RecursiveAction {
+    /**
+     * Receives the neighbors of one finished leaf range. Calls may come from any worker thread.
+     * Row i of the result is movieIds[i] -> similarMovieIds[i] with rank ranks[i].
+     */
+    interface ResultSink {
+        void accept(long[] movieIds, int[] ranks, long[] similarMovieIds, float[] scores, int size);
+    }
+
+    private static final int LEAF_SIZE = 512;
+
+    // Users with huge collections add quadratic work but almost no signal.
+    private static final int MAX_USER_ITEMS = 2000;
+
+    private final InteractionMatrix matrix;
+    private final int neighbors;
+    private final ResultSink sink;
+    private final ThreadLocal<int[]> scratch;
+    private final int from;
+    private final int to;
+
+    ItemSimilarityTask(InteractionMatrix matrix, int neighbors, ResultSink sink) {
+        this(matrix, neighbors, sink, ThreadLocal.withInitial(() -> new int[matrix.numItems()]), 0, matrix.numItems());
+    }
+
+    private ItemSimilarityTask(
+        InteractionMatrix matrix,
+        int neighbors,
+        ResultSink sink,
+        ThreadLocal<int[]> scratch,
+        int from,
+        int to
+    ) {
+        this.matrix = matrix;
+        this.neighbors = neighbors;
+        this.sink = sink;
+        this.scratch = scratch;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= LEAF_SIZE) {
+            computeRange();
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+
+        invokeAll(
+            new ItemSimilarityTask(matrix, neighbors, sink, scratch, from, middle),
+            new ItemSimilarityTask(matrix, neighbors, sink, scratch, middle, to)
+        );
+    }
+
+    private void computeRange() {
+        // Co-occurrence counts per movie, always left zeroed between items.
+        int[] counts = scratch.get();
+        int[] touched = new int[64];
+
+        int capacity = (to - from) * neighbors;
+        long[] resultMovieIds = new long[capacity];
+        int[] resultRanks = new int[capacity];
+        long[] resultSimilarIds = new long[capacity];
+        float[] resultScores = new float[capacity];
+        int size = 0;
+
+        int[] heapItems = new int[neighbors];
+        float[] heapScores = new float[neighbors];
+
+        for (int item = from; item < to; item++) {
+            int touchedSize = 0;
+
+            for (int u = matrix.itemOffsets[item]; u < matrix.itemOffsets[item + 1]; u++) {
+                int user = matrix.itemUsers[u];
+                int userStart = matrix.userOffsets[user];
+                int userEnd = matrix.userOffsets[user + 1];
+
+                if (userEnd - userStart > MAX_USER_ITEMS) {
+                    continue;
+                }
+
+                for (int i = userStart; i < userEnd; i++) {
+                    int other = matrix.userItems[i];
+
+                    if (other == item) {
+                        continue;
+                    }
+
+                    if (counts[other]++ == 0) {
+                        if (touchedSize == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedSize * 2);
+                        }
+
+                        touched[touchedSize++] = other;
+                    }
+                }
+            }
+
+            int heapSize = 0;
+            double itemDegree = matrix.itemDegree(item);
+
+            for (int t = 0; t < touchedSize; t++) {
+                int other = touched[t];
+                float score = (float) (counts[other] / Math.sqrt(itemDegree * matrix.itemDegree(other)));
+                counts[other] = 0;
+
+                if (heapSize < neighbors) {
+                    heapItems[heapSize] = other;
+                    heapScores[heapSize] = score;
+                    siftUp(heapItems, heapScores, heapSize++);
+                } else if (score > heapScores[0]) {
+                    heapItems[0] = other;
+                    heapScores[0] = score;
+                    siftDown(heapItems, heapScores, heapSize);
+                }
+            }
+
+            // Popping the min-heap yields the neighbors from worst to best.
+            for (int rank = heapSize; rank >= 1; rank--) {
+                int row = size + rank - 1;
+
+                resultMovieIds[row] = matrix.movieIds[item];
+                resultRanks[row] = rank;
+                resultSimilarIds[row] = matrix.movieIds[heapItems[0]];
+                resultScores[row] = heapScores[0];
+
+                heapItems[0] = heapItems[rank - 1];
+                heapScores[0] = heapScores[rank - 1];
+                siftDown(heapItems, heapScores, rank - 1);
+            }
+
+            size += heapSize;
+        }
+
+        if (size > 0) {
+            sink.accept(resultMovieIds, resultRanks, resultSimilarIds, resultScores, size);
+        }
+    }
+
+    private static void siftUp(int[] items, float[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+
+            swap(items, scores, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] items, float[] scores, int size) {
+        int index = 0;
+
+        while (true) {
+            int left = 2 * index + 1;
+            int smallest = index;
+
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+
+            if (left + 1 < size && scores[left + 1] < scores[smallest]) {
+                smallest = left + 1;
+            }
+
+            if (smallest == index) {
+                return;
+            }
+
+            swap(items, scores, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] items, float[] scores, int i, int j) {
+        int item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -0,0 +1,253 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.dto.MovieBrowseRequest;
+import com.mahmoud.movieChecker.dto.MovieBrowseResponse;
+import com.mahmoud.movieChecker.dto.MovieFacets;
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.exception.InvalidRequestDataException;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.mahmoud.movieChecker.repository.MovieDetailsSpecifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Faceted catalog browsing. Movies come from movie_details through the composite browse indexes,
+ * facet counts from an in-memory copy of the movie_facet_summary materialized view.
+ *
+ * <p>Pages are keyed on the range filtered column and id (year, else imdb rate, else id alone),
+ * so the matching index returns them in order and a page reads about limit rows, however broad
+ * the filter. The nextAfter cursor carries that column's value and the id.
+ */
+@Service
+@RequiredArgsConstructor
+public class MovieBrowseService {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final MovieDetailsRepository movieDetailsRepository;
+    private final GenreService genreService;
+
+    private volatile FacetSummary facetSummary = FacetSummary.EMPTY;
+
+    /**
+     * One row per distinct (year, type, genre mask, imdb rate) with its movie count, held column-wise.
+     * Missing years and rates are -1, imdb rates are stored in tenths.
+     */
+    private record FacetSummary(
+        int[] years,
+        int[] typeIndexes,
+        long[] genreMasks,
+        int[] rateTenths,
+        long[] counts,
+        String[] typeNames
+    ) {
+        static final FacetSummary EMPTY = new FacetSummary(new int[0], new int[0], new long[0], new int[0], new long[0], new String[0]);
+
+        int size() {
+            return counts.length;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public MovieBrowseResponse browse(MovieBrowseRequest request) {
+        long genreMask = genreService.filterMaskOf(request.getGenre());
+        int limit = (request.getLimit() == null)? DEFAULT_LIMIT : request.getLimit();
+
+        String orderBy = orderOf(request);
+        String[] after = parseCursor(request.getAfter(), orderBy);
+
+        Specification<MovieDetails> specification = Specification.allOf(
+            keyset(orderBy, after),
+            MovieDetailsSpecifications.yearFrom(request.getYearFrom()),
+            MovieDetailsSpecifications.yearTo(request.getYearTo()),
+            MovieDetailsSpecifications.hasType(request.getType()),
+            MovieDetailsSpecifications.imdbRateFrom(request.getMinRate()),
+            MovieDetailsSpecifications.imdbRateTo(request.getMaxRate()),
+            MovieDetailsSpecifications.hasGenres(genreMask)
+        );
+
+        Sort sort = orderBy.equals("id")? Sort.by("id") : Sort.by(orderBy, "id");
+
+        List<MovieDetails> movies = movieDetailsRepository.findBy(specification, query -> query
+                .sortBy(sort)
+                .limit(limit)
+                .all()
+        );
+
+        String nextAfter = (movies.size() == limit)? cursorOf(movies.getLast(), orderBy) : null;
+
+        return new MovieBrowseResponse(movies, nextAfter, computeFacets(request, genreMask));
+    }
+
+    // Both range filters exclude movies without the value, so the partial (year, id) and (imdb_rate, id) indexes apply.
+    private static String orderOf(MovieBrowseRequest request) {
+        if (request.getYearFrom() != null || request.getYearTo() != null) {
+            return "year";
+        }
+
+        if (request.getMinRate() != null || request.getMaxRate() != null) {
+            return "imdbRate";
+        }
+
+        return "id";
+    }
+
+    private static String cursorOf(MovieDetails movie, String orderBy) {
+        return switch (orderBy) {
+            case "year" -> movie.getYear() + ":" + movie.getId();
+            case "imdbRate" -> movie.getImdbRate() + ":" + movie.getId();
+            default -> String.valueOf(movie.getId());
+        };
+    }
+
+    private static String[] parseCursor(String after, String orderBy) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+
+        String[] parts = after.trim().split(":");
+
+        if (parts.length != (orderBy.equals("id")? 1 : 2)) {
+            throw new InvalidRequestDataException("The after cursor doesn't belong to these filters.");
+        }
+
+        return parts;
+    }
+
+    private static Specification<MovieDetails> keyset(String orderBy, String[] after) {
+        if (after == null) {
+            return Specification.unrestricted();
+        }
+
+        try {
+            return switch (orderBy) {
+                case "year" -> MovieDetailsSpecifications.after("year", Integer.valueOf(after[0]), Long.valueOf(after[1]));
+                case "imdbRate" -> MovieDetailsSpecifications.after("imdbRate", Double.valueOf(after[0]), Long.valueOf(after[1]));
+                default -> MovieDetailsSpecifications.idGreaterThan(Long.valueOf(after[0]));
+            };
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestDataException("Invalid after cursor.");
+        }
+    }
+
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void refreshFacetSummary() {
+        movieDetailsRepository.refreshFacetSummary();
+
+        List<Object[]> rows = movieDetailsRepository.findFacetSummary();
+
+        int[] years = new int[rows.size()];
+        int[] typeIndexes = new int[rows.size()];
+        long[] genreMasks = new long[rows.size()];
+        int[] rateTenths = new int[rows.size()];
+        long[] counts = new long[rows.size()];
+
+        Map<String, Integer> typeIndexByName = new LinkedHashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+
+            years[i] = ((Number) row[0]).intValue();
+            typeIndexes[i] = typeIndexByName.computeIfAbsent((String) row[1], type -> typeIndexByName.size());
+            genreMasks[i] = ((Number) row[2]).longValue();
+            rateTenths[i] = (int) Math.round(((Number) row[3]).doubleValue() * 10);
+            counts[i] = ((Number) row[4]).longValue();
+        }
+
+        facetSummary = new FacetSummary(
+            years,
+            typeIndexes,
+            genreMasks,
+            rateTenths,
+            counts,
+            typeIndexByName.keySet().toArray(String[]::new)
+        );
+    }
+
+    private MovieFacets computeFacets(MovieBrowseRequest request, long genreMask) {
+        FacetSummary summary = facetSummary;
+
+        int yearFrom = (request.getYearFrom() == null)? Integer.MIN_VALUE : request.getYearFrom();
+        int yearTo = (request.getYearTo() == null)? Integer.MAX_VALUE : request.getYearTo();
+        boolean filterYear = request.getYearFrom() != null || request.getYearTo() != null;
+
+        int rateFrom = (request.getMinRate() == null)? Integer.MIN_VALUE : (int) Math.ceil(request.getMinRate() * 10 - 1e-9);
+        int rateTo = (request.getMaxRate() == null)? Integer.MAX_VALUE : (int) Math.floor(request.getMaxRate() * 10 + 1e-9);
+        boolean filterRate = request.getMinRate() != null || request.getMaxRate() != null;
+
+        int typeFilter = -1;
+        if (request.getType() != null && !request.getType().isBlank()) {
+            typeFilter = Arrays.asList(summary.typeNames()).indexOf(request.getType().trim());
+
+            if (typeFilter == -1) {
+                typeFilter = Integer.MIN_VALUE;
+            }
+        }
+
+        Map<Integer, Long> years = new TreeMap<>();
+        long[] typeCounts = new long[summary.typeNames().length];
+        long[] genreCounts = new long[Long.SIZE];
+        long[] rateCounts = new long[11];
+
+        for (int i = 0; i < summary.size(); i++) {
+            int year = summary.years()[i];
+            int rate = summary.rateTenths()[i];
+            long mask = summary.genreMasks()[i];
+            long count = summary.counts()[i];
+
+            boolean yearMatches = !filterYear || (year != -1 && year >= yearFrom && year <= yearTo);
+            boolean rateMatches = !filterRate || (rate != -1 && rate >= rateFrom && rate <= rateTo);
+            boolean typeMatches = typeFilter == -1 || summary.typeIndexes()[i] == typeFilter;
+            boolean genreMatches = (mask & genreMask) == genreMask;
+
+            if (typeMatches && genreMatches && rateMatches && year != -1) {
+                years.merge(year, count, Long::sum);
+            }
+
+            if (yearMatches && genreMatches && rateMatches) {
+                typeCounts[summary.typeIndexes()[i]] += count;
+            }
+
+            if (yearMatches && typeMatches && rateMatches) {
+                for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                    genreCounts[Long.numberOfTrailingZeros(remaining)] += count;
+                }
+            }
+
+            if (yearMatches && typeMatches && genreMatches && rate != -1) {
+                rateCounts[rate / 10] += count;
+            }
+        }
+
+        Map<String, Long> types = new LinkedHashMap<>();
+        for (int t = 0; t < typeCounts.length; t++) {
+            if (typeCounts[t] > 0 && !summary.typeNames()[t].isEmpty()) {
+                types.put(summary.typeNames()[t], typeCounts[t]);
+            }
+        }
+
+        Map<String, Long> genres = new TreeMap<>();
+        for (int bit = 0; bit < genreCounts.length; bit++) {
+            if (genreCounts[bit] > 0) {
+                for (String name : genreService.namesOf(1L << bit)) {
+                    genres.put(name, genreCounts[bit]);
+                }
+            }
+        }
+
+        Map<Integer, Long> imdbRates = new TreeMap<>();
+        for (int r = 0; r < rateCounts.length; r++) {
+            if (rateCounts[r] > 0) {
+                imdbRates.put(r, rateCounts[r]);
+            }
+        }
+
+        return new MovieFacets(years, genres, types, imdbRates);
+    }
+}
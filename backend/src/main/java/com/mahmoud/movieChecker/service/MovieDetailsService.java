@@ -4,64 +4,207 @@ import com.mahmoud.movieChecker.dto.RetrievedDataFromOmdbApi;
 import com.mahmoud.movieChecker.entity.MovieDetails;
 import com.mahmoud.movieChecker.exception.MovieNotFoundException;
 import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MovieDetailsService {
+    // Left for the closing event after a search that ran into its deadline.
+    private static final Duration STREAM_GRACE = Duration.ofSeconds(5);
+    private static final ThreadFactory STREAM_THREADS = Thread.ofVirtual().name("movie-search-stream-", 0).factory();
+
     @Value("${OMDB_API_KEY}")
     private String apiKey;
 
+    @Value("${movie-search.deadline:3s}")
+    private Duration searchDeadline;
+
     private final MovieDetailsRepository movieDetailsRepository;
     private final RestClient restClient;
+    private final GenreService genreService;
+    private final CacheVersionService cacheVersionService;
+    private final MovieLookupCacheService movieLookupCacheService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
 
+    @Transactional(readOnly = true)
     public Set<MovieDetails> getAllMovies() {
         return movieDetailsRepository.findAllMovieDetails();
     }
 
-    public List<MovieDetails> search(String q) {
-        if (q == null || q.isBlank()) {
-            return new ArrayList<>();
-        }
+    public SearchResult search(String q, String genre) {
+        List<MovieDetails> localMovies = new ArrayList<>();
+        List<MovieDetails> externalMovies = new ArrayList<>();
 
-        List<MovieDetails> localMovies = movieDetailsRepository.search(q.trim());
+        boolean complete = search(q, genre, new DeadlineScope(searchDeadline, meterRegistry), new SearchListener() {
+            @Override
+            public void local(List<MovieDetails> movies) {
+                localMovies.addAll(movies);
+            }
 
-        if (localMovies.size() >= 10) {
-            return localMovies;
-        }
+            @Override
+            public void external(MovieDetails movie) {
+                externalMovies.add(movie);
+            }
+        });
 
-        List<String> titles = getMoviesTitlesFromOmdb(q);
-        List<String> localMoviesTitles = movieDetailsRepository.findAllMoviesTitles();
-        List<MovieDetails> externalMovies = new ArrayList<>();
+        return new SearchResult(Stream.concat(localMovies.stream(), externalMovies.stream()).toList(), complete);
+    }
 
-        int i = 5;
-        
-        for (String title : titles) {
+    /**
+     * Same search as {@link #search(String, String)}, sent as it happens: one
+     * "local" event with the local hits, a "movie" event per stored OMDb
+     * title and a closing "complete" event. A client that goes away cancels
+     * the search.
+     */
+    public SseEmitter searchStream(String q, String genre) {
+        SseEmitter emitter = new SseEmitter(searchDeadline.plus(STREAM_GRACE).toMillis());
+        DeadlineScope scope = new DeadlineScope(searchDeadline, meterRegistry);
+        AtomicInteger sent = new AtomicInteger();
+
+        // Cancelling rather than interrupting the worker, which may be storing a movie.
+        emitter.onTimeout(scope::cancel);
+        emitter.onError(e -> scope.cancel());
+        emitter.onCompletion(scope::cancel);
+
+        STREAM_THREADS.newThread(() -> {
             try {
-                if (!localMoviesTitles.contains(title)) {
-                    externalMovies.add(getMovieDetailsFromOmdb(title));
-                }
+                boolean complete = search(q, genre, scope, new SearchListener() {
+                    @Override
+                    public void local(List<MovieDetails> movies) {
+                        send(emitter, SseEmitter.event().name("local").data(movies));
+                        sent.addAndGet(movies.size());
+                    }
+
+                    @Override
+                    public void external(MovieDetails movie) {
+                        send(emitter, SseEmitter.event().name("movie").data(movie));
+                        sent.incrementAndGet();
+                    }
+                });
+
+                send(emitter, SseEmitter.event().name("complete").data(Map.of("results", sent.get(), "partial", !complete)));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        }).start();
 
-                i--;
-            } catch (Exception ignored) {
+        return emitter;
+    }
+
+    /**
+     * Starts the local query, the OMDb search and the stored titles lookup at
+     * once and fetches the details of up to five new OMDb titles as soon as
+     * both lists are in, storing each as it arrives. Results go to the
+     * listener as they come, whatever hasn't finished by the search deadline
+     * is cancelled and left out. Returns false when the search was cut short
+     * or an OMDb call or store failed.
+     */
+    private boolean search(String q, String genre, DeadlineScope scope, SearchListener listener) {
+        try (scope) {
+            if (q == null || q.isBlank()) {
+                return true;
             }
 
-            if (i == 0) {
-                break;
+            long genreMask = genreService.filterMaskOf(genre);
+            Timer.Sample sample = Timer.start(meterRegistry);
+
+            DeadlineScope.Subtask<List<MovieDetails>> local = scope.forkUninterruptible("local", () ->
+                meterRegistry.timer("moviechecker.movies.query", "query", "search")
+                    .record(() -> movieDetailsRepository.search(q.trim(), genreMask))
+            );
+            DeadlineScope.Subtask<List<String>> omdbTitles = scope.fork("omdb_search", () -> getMoviesTitlesFromOmdb(q));
+            DeadlineScope.Subtask<List<String>> localTitles = scope.forkUninterruptible("local_titles", movieDetailsRepository::findAllMoviesTitles);
+            boolean detailsForked = false;
+            boolean failed = false;
+
+            for (DeadlineScope.Subtask<?> done = scope.next(); done != null; done = scope.next()) {
+                if (done == local) {
+                    if (local.failed()) {
+                        throw local.exception() instanceof RuntimeException e ? e : new IllegalStateException(local.exception());
+                    }
+
+                    listener.local(local.result());
+
+                    // Enough local results make the OMDb side moot.
+                    if (local.result().size() >= 10) {
+                        break;
+                    }
+                }
+
+                // Mapped and stored here rather than on the subtask's thread, which only talks to OMDb:
+                // it may be interrupted, and new genres are registered with JDBC under a lock.
+                if (done.failed()) {
+                    failed = true;
+                }
+
+                if (done.stage().equals("omdb_details") && done.succeeded()) {
+                    MovieDetails movie = storeSearchResult((RetrievedDataFromOmdbApi) done.result());
+
+                    if (movie == null) {
+                        failed = true;
+                    } else if ((movie.getGenreMask() & genreMask) == genreMask) {
+                        listener.external(movie);
+                    }
+                }
+
+                if (!detailsForked && omdbTitles.succeeded() && localTitles.succeeded()) {
+                    detailsForked = true;
+
+                    omdbTitles.result().stream()
+                            .filter(title -> !localTitles.result().contains(title))
+                            .limit(5)
+                            .forEach(title -> scope.fork("omdb_details", () -> retrieveMovieDataFromOmdb("t", title.trim())));
+                }
             }
+
+            sample.stop(meterRegistry.timer("moviechecker.search.pipeline", "outcome", scope.outcome()));
+
+            return scope.outcome().equals("complete") && !failed;
         }
+    }
+
+    // Null when the movie couldn't be stored, which leaves it out rather than failing the whole search.
+    private MovieDetails storeSearchResult(RetrievedDataFromOmdbApi movieData) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            MovieDetails movie = store(toMovieDetails(movieData));
+            outcome = "success";
 
-        return Stream.concat(localMovies.stream(), externalMovies.stream()).toList();
+            return movie;
+        } catch (RuntimeException e) {
+            log.warn("Storing OMDb movie {} failed, leaving it out of the search: {}", movieData.imdbID(), e.toString());
+
+            return null;
+        } finally {
+            sample.stop(meterRegistry.timer("moviechecker.search.stage", "stage", "omdb_details_store", "outcome", outcome));
+        }
     }
 
     public List<String> suggest(String q) {
@@ -69,23 +212,29 @@ public class MovieDetailsService {
             return new ArrayList<>();
         }
 
-        List<String> localMoviesTitles = movieDetailsRepository.suggest(q.trim());
+        List<String> localMoviesTitles = meterRegistry.timer("moviechecker.movies.query", "query", "suggest")
+                .record(() -> movieDetailsRepository.suggest(q.trim()));
 
         if (localMoviesTitles.size() >= 5) {
             return localMoviesTitles;
         }
 
         List<String> titles = getMoviesTitlesFromOmdb(q);
+        List<MovieDetails> externalMovies = new ArrayList<>();
 
         for (String title : titles) {
             try {
                 if (!localMoviesTitles.contains(title)) {
-                    getMovieDetailsFromOmdb(title);
+                    externalMovies.add(retrieveMovieDetailsFromOmdb(title));
                 }
             } catch (Exception ignored) {
             }
         }
 
+        if (!externalMovies.isEmpty()) {
+            storeAll(externalMovies);
+        }
+
         return Stream.concat(localMoviesTitles.stream(), titles.stream()).distinct().toList();
     }
 
@@ -95,14 +244,86 @@ public class MovieDetailsService {
     }
 
     private MovieDetails getMovieDetailsFromOmdb(String movieTitle) {
-        RetrievedDataFromOmdbApi movieData = (RetrievedDataFromOmdbApi) retrieveMovieDetailsFromOmdbApi(
-            "t", movieTitle.trim()
-        );
+        return store(retrieveMovieDetailsFromOmdb(movieTitle));
+    }
+
+    // The stored row, which is an older copy when the movie was already there.
+    private MovieDetails store(MovieDetails movie) {
+        MovieDetails stored = transactionTemplate.execute(transaction -> {
+            List<Object[]> rows = movieDetailsRepository.store(movie);
+
+            if (rows.isEmpty()) {
+                return null;
+            }
+
+            if ((Boolean) rows.getFirst()[1]) {
+                moviesInserted();
+            }
+
+            return (MovieDetails) rows.getFirst()[0];
+        });
+
+        // Lost a race with another insert of the movie, which has committed by now.
+        if (stored == null) {
+            return movieDetailsRepository.findByImdbId(movie.getImdbId()).orElseThrow(MovieNotFoundException::new);
+        }
+
+        return stored;
+    }
+
+    // Suggestions come with every keystroke, so a movie that can't be stored (an out of range rating, say) is
+    // only logged. The batch fails as a whole, the movies are then stored one at a time.
+    private void storeAll(List<MovieDetails> movies) {
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> {
+                if (!movieDetailsRepository.upsertAll(movies).isEmpty()) {
+                    moviesInserted();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Storing {} OMDb movies at once failed, storing them one at a time: {}", movies.size(), e.toString());
+
+            for (MovieDetails movie : movies) {
+                try {
+                    store(movie);
+                } catch (RuntimeException movieFailed) {
+                    log.warn("Storing OMDb movie {} failed: {}", movie.getImdbId(), movieFailed.toString());
+                }
+            }
+        }
+    }
+
+    // In the inserting transaction, both take effect once it commits.
+    private void moviesInserted() {
+        movieLookupCacheService.moviesInserted();
+        cacheVersionService.catalogChanged();
+    }
+
+    // What OMDb currently has for a stored movie, for CatalogRefreshService.
+    public MovieDetails retrieveMovieDetailsFromOmdbByImdbId(String imdbId) {
+        return retrieveMovieDetailsFromOmdb("i", imdbId);
+    }
+
+    private MovieDetails retrieveMovieDetailsFromOmdb(String movieTitle) {
+        return retrieveMovieDetailsFromOmdb("t", movieTitle.trim());
+    }
+
+    private MovieDetails retrieveMovieDetailsFromOmdb(String param, String value) {
+        return toMovieDetails(retrieveMovieDataFromOmdb(param, value));
+    }
+
+    private RetrievedDataFromOmdbApi retrieveMovieDataFromOmdb(String param, String value) {
+        RetrievedDataFromOmdbApi movieData = (RetrievedDataFromOmdbApi) retrieveMovieDetailsFromOmdbApi(param, value);
 
         if (movieData.imdbID() == null) {
             throw new MovieNotFoundException();
         }
 
+        return movieData;
+    }
+
+    // Registers genres seen for the first time, so it belongs on a thread that may run statements.
+    private MovieDetails toMovieDetails(RetrievedDataFromOmdbApi movieData) {
         Integer year = null;
         Double imdbRate = null;
 
@@ -115,33 +336,28 @@ public class MovieDetailsService {
         } catch (Exception ignored) {
         }
 
-        MovieDetails localMovie = movieDetailsRepository.findByImdbId(movieData.imdbID()).orElse(null);
-
-        if (localMovie != null) {
-            return localMovie;
-        }
-
-        MovieDetails movie = MovieDetails.builder()
+        return MovieDetails.builder()
                 .imdbId(movieData.imdbID())
                 .title(movieData.Title())
                 .year(year)
                 .runtime(movieData.Runtime())
                 .genre(movieData.Genre())
+                .genreMask(genreService.maskOf(movieData.Genre()))
                 .overview(movieData.Plot())
                 .posterUrl(movieData.Poster())
                 .imdbRate(imdbRate)
                 .type(movieData.Type())
                 .build();
+    }
 
-        movieDetailsRepository.save(movie);
+    private List<String> getMoviesTitlesFromOmdb(String q) {
+        String json = (String) retrieveMovieDetailsFromOmdbApi("s", q);
 
-        return movie;
+        return parseMoviesTitles(json);
     }
 
-    private List<String> getMoviesTitlesFromOmdb(String q) {
+    static List<String> parseMoviesTitles(String json) {
         ObjectMapper mapper = new ObjectMapper();
-
-        String json = (String) retrieveMovieDetailsFromOmdbApi("s", q);
         JsonNode root = mapper.readTree(json);
 
         JsonNode searchProperty = root.path("Search");
@@ -165,13 +381,42 @@ public class MovieDetailsService {
 
         body = (param.equals("s"))? String.class : body;
 
-        return restClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .queryParam("apiKey", apiKey)
-                    .queryParam(param, q)
-                    .build()
-                )
-                .retrieve()
-                .body(body);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            Object response = restClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                        .queryParam("apiKey", apiKey)
+                        .queryParam(param, q)
+                        .build()
+                    )
+                    .retrieve()
+                    .body(body);
+
+            outcome = "success";
+
+            return response;
+        } finally {
+            sample.stop(meterRegistry.timer("moviechecker.omdb.requests", "param", param, "outcome", outcome));
+        }
+    }
+
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface SearchListener {
+        void local(List<MovieDetails> movies);
+
+        void external(MovieDetails movie);
+    }
+
+    // Partial when the search ran into its deadline or an OMDb call or store failed.
+    public record SearchResult(List<MovieDetails> movies, boolean complete) {
     }
 }
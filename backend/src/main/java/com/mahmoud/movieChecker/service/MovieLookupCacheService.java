@@ -0,0 +1,37 @@
+package com.mahmoud.movieChecker.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.TransactionCompletionCallbacks;
+import org.springframework.stereotype.Service;
+
+/**
+ * Invalidates the cached movie lookups (findByTitleIgnoreCase, findByImdbId)
+ * after native inserts into movie_details. Declaring the table as a native
+ * query space would do that too, but Hibernate then also clears the whole
+ * movie-details entity region, which a new row can't make stale.
+ */
+@Service
+@RequiredArgsConstructor
+public class MovieLookupCacheService {
+    private static final String[] MOVIE_DETAILS_SPACES = {"movie_checker.movie_details"};
+
+    private final EntityManager entityManager;
+
+    /**
+     * Must be called in the inserting transaction. Bumps the table's update
+     * timestamp the way Hibernate does for its own writes: lookups cached
+     * while the transaction is open aren't trusted, and those cached before
+     * it completed are stale afterwards.
+     */
+    public void moviesInserted() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        TimestampsCache timestampsCache = session.getFactory().getCache().getTimestampsCache();
+
+        timestampsCache.preInvalidate(MOVIE_DETAILS_SPACES, session);
+        session.getActionQueue().registerCallback((TransactionCompletionCallbacks.AfterCompletionCallback)
+                (success, completedSession) -> timestampsCache.invalidate(MOVIE_DETAILS_SPACES, completedSession));
+    }
+}
@@ -0,0 +1,190 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.mahmoud.movieChecker.repository.MoviePopularityRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers popularity changes in striped in-memory counters, flushes them in batches to movie_popularity
+ * and serves the leaderboards from a snapshot that is rebuilt periodically.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MoviePopularityService {
+    private static final int LEADERBOARD_SIZE = 50;
+    private static final int TOP_RATED_MIN_RATINGS = 3;
+
+    private final MoviePopularityRepository moviePopularityRepository;
+    private final MovieDetailsRepository movieDetailsRepository;
+    private final CacheVersionService cacheVersionService;
+
+    // One entry per movie with changes not flushed yet, removed once a flush drains it.
+    private final Map<Long, MovieCounters> pendingCounters = new ConcurrentHashMap<>();
+
+    private volatile Leaderboards leaderboards = Leaderboards.EMPTY;
+
+    private record Leaderboards(
+        List<MovieDetails> mostWatched,
+        List<MovieDetails> mostFavorited,
+        List<MovieDetails> topRated
+    ) {
+        static final Leaderboards EMPTY = new Leaderboards(List.of(), List.of(), List.of());
+    }
+
+    private static final class MovieCounters {
+        final LongAdder watched = new LongAdder();
+        final LongAdder favorite = new LongAdder();
+        final LongAdder rated = new LongAdder();
+
+        // Rates have one decimal, so tenths keep the sum exact.
+        final LongAdder userRateTenthsSum = new LongAdder();
+
+        void add(long[] delta) {
+            watched.add(delta[0]);
+            favorite.add(delta[1]);
+            rated.add(delta[2]);
+            userRateTenthsSum.add(delta[3]);
+        }
+
+        boolean drained() {
+            return watched.sum() == 0 && favorite.sum() == 0 && rated.sum() == 0 && userRateTenthsSum.sum() == 0;
+        }
+    }
+
+    public List<MovieDetails> getMostWatched() {
+        return leaderboards.mostWatched();
+    }
+
+    public List<MovieDetails> getMostFavorited() {
+        return leaderboards.mostFavorited();
+    }
+
+    public List<MovieDetails> getTopRated() {
+        return leaderboards.topRated();
+    }
+
+    // Counted only once the surrounding transaction commits, so rolled back changes never reach the counters.
+    public void recordChange(Long movieId, UserMoviesSnapshot before, UserMoviesSnapshot after) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addChange(movieId, before, after);
+                }
+            });
+        } else {
+            addChange(movieId, before, after);
+        }
+    }
+
+    private void addChange(Long movieId, UserMoviesSnapshot before, UserMoviesSnapshot after) {
+        long watched = countIf(after.status() == MovieStatus.WATCHED) - countIf(before.status() == MovieStatus.WATCHED);
+        long favorite = countIf(after.favorite()) - countIf(before.favorite());
+        long rated = countIf(after.userRate() != null) - countIf(before.userRate() != null);
+        long userRateTenths = toTenths(after.userRate()) - toTenths(before.userRate());
+
+        if (watched == 0 && favorite == 0 && rated == 0 && userRateTenths == 0) {
+            return;
+        }
+
+        add(movieId, new long[] {watched, favorite, rated, userRateTenths});
+    }
+
+    // Under the map's lock for the movie, so a flush can't remove the entry between lookup and add.
+    private void add(Long movieId, long[] delta) {
+        pendingCounters.compute(movieId, (id, counters) -> {
+            MovieCounters movieCounters = (counters == null)? new MovieCounters() : counters;
+            movieCounters.add(delta);
+
+            return movieCounters;
+        });
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void flushCounters() {
+        List<Long> movieIds = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+
+        // Subtracting exactly what was read keeps increments that race with the flush for the next one.
+        pendingCounters.forEach((movieId, counters) -> {
+            long[] delta = {
+                counters.watched.sum(),
+                counters.favorite.sum(),
+                counters.rated.sum(),
+                counters.userRateTenthsSum.sum()
+            };
+
+            if (delta[0] != 0 || delta[1] != 0 || delta[2] != 0 || delta[3] != 0) {
+                counters.add(new long[] {-delta[0], -delta[1], -delta[2], -delta[3]});
+
+                movieIds.add(movieId);
+                deltas.add(delta);
+            }
+
+            // Checked again under the movie's lock, a change that came in since stays for the next flush.
+            pendingCounters.computeIfPresent(movieId, (id, current) -> current.drained()? null : current);
+        });
+
+        if (movieIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            int changed = moviePopularityRepository.addToPopularity(
+                movieIds.toArray(Long[]::new),
+                deltas.stream().map(delta -> delta[0]).toArray(Long[]::new),
+                deltas.stream().map(delta -> delta[1]).toArray(Long[]::new),
+                deltas.stream().map(delta -> delta[2]).toArray(Long[]::new),
+                deltas.stream().map(delta -> delta[3] / 10.0).toArray(Double[]::new)
+            );
+
+            if (changed > 0) {
+                cacheVersionService.catalogChanged();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush popularity counters for {} movies, retrying on next flush.", movieIds.size(), e);
+
+            for (int i = 0; i < movieIds.size(); i++) {
+                add(movieIds.get(i), deltas.get(i));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60, timeUnit = TimeUnit.SECONDS)
+    public void refreshLeaderboards() {
+        leaderboards = new Leaderboards(
+            List.copyOf(movieDetailsRepository.findMostWatched(LEADERBOARD_SIZE)),
+            List.copyOf(movieDetailsRepository.findMostFavorited(LEADERBOARD_SIZE)),
+            List.copyOf(movieDetailsRepository.findTopRated(TOP_RATED_MIN_RATINGS, LEADERBOARD_SIZE))
+        );
+    }
+
+    int pendingMovies() {
+        return pendingCounters.size();
+    }
+
+    private long countIf(boolean condition) {
+        return condition? 1 : 0;
+    }
+
+    private long toTenths(Double rate) {
+        return (rate == null)? 0 : Math.round(rate * 10);
+    }
+}
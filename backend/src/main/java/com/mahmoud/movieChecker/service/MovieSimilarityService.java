@@ -0,0 +1,156 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.mahmoud.movieChecker.repository.MovieSimilarityRepository;
+import com.mahmoud.movieChecker.repository.UserMoviesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * "Because you watched" recommendations: cosine item-item similarity over the co-occurrence of movies
+ * in users' watched and favorite sets, precomputed into movie_similarity.
+ *
+ * <p>Building the matrix takes about 32 bytes per interaction at its peak (the loaded ids, their dense
+ * indexes and the two int CSR copies), afterwards the job holds 8 bytes per interaction plus one
+ * int[movies] scratch array per worker: about 350 MB at the default cap of 10M interactions over
+ * 1M movies on 8 cores. Above recommendations.max-interactions a uniform sample of that size is used.
+ *
+ * <p>A rebuild holds a session-level advisory lock, so with several instances only one rebuilds at a
+ * time. Rows are stamped with the database's clock, the stale ones are whatever an earlier rebuild left.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MovieSimilarityService {
+    private static final int NEIGHBORS = 20;
+    private static final int LOAD_CHUNK_SIZE = 50_000;
+    // Any value works, as long as nothing else takes this advisory lock.
+    private static final long REBUILD_LOCK_KEY = 4_031_001L;
+
+    private final UserMoviesRepository userMoviesRepository;
+    private final MovieSimilarityRepository movieSimilarityRepository;
+    private final MovieDetailsRepository movieDetailsRepository;
+    private final AdvisoryLockService advisoryLockService;
+    private final CacheVersionService cacheVersionService;
+
+    private final Object writeLock = new Object();
+
+    @Value("${recommendations.max-interactions:10000000}")
+    private int maxInteractions;
+
+    @Transactional(readOnly = true)
+    public List<MovieDetails> getSimilarMovies(Long movieId) {
+        return movieDetailsRepository.findSimilar(movieId);
+    }
+
+    @Scheduled(cron = "${recommendations.cron:0 0 4 * * *}")
+    public void rebuildSimilarities() {
+        try (AdvisoryLockService.Lock lock = advisoryLockService.tryLock(REBUILD_LOCK_KEY)) {
+            if (lock == null) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            LocalDateTime computedAt = movieSimilarityRepository.currentTimestamp();
+
+            InteractionMatrix matrix = loadInteractions();
+            LongAdder written = new LongAdder();
+
+            ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+            try {
+                pool.invoke(new ItemSimilarityTask(
+                    matrix,
+                    NEIGHBORS,
+                    (movieIds, ranks, similarMovieIds, scores, size) ->
+                        written.add(writeNeighbors(movieIds, ranks, similarMovieIds, scores, size, computedAt))
+                ));
+            } finally {
+                pool.shutdown();
+            }
+
+            int removed = movieSimilarityRepository.deleteAllComputedBefore(computedAt);
+
+            if (written.sum() > 0 || removed > 0) {
+                cacheVersionService.catalogChanged();
+            }
+
+            log.info(
+                "Rebuilt similarities for {} movies in {} ms ({} stale rows removed).",
+                matrix.numItems(), System.currentTimeMillis() - start, removed
+            );
+        }
+    }
+
+    // Sized from a count up front, rows added since the count are left for the next rebuild.
+    private InteractionMatrix loadInteractions() {
+        long total = userMoviesRepository.countInteractions();
+        int capacity = (int) Math.min(total, maxInteractions);
+        double sampleRate = (total == 0)? 1 : (double) capacity / total;
+
+        if (capacity < total) {
+            log.warn("{} interactions exceed recommendations.max-interactions, sampling {} of them.", total, capacity);
+        }
+
+        long[] userIds = new long[capacity];
+        long[] movieIds = new long[capacity];
+        int rows = 0;
+
+        long afterId = 0;
+        List<Object[]> chunk;
+
+        do {
+            chunk = userMoviesRepository.findInteractionsAfter(afterId, LOAD_CHUNK_SIZE);
+
+            for (Object[] row : chunk) {
+                afterId = ((Number) row[0]).longValue();
+
+                if (rows == capacity) {
+                    break;
+                }
+
+                if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                    continue;
+                }
+
+                userIds[rows] = ((Number) row[1]).longValue();
+                movieIds[rows] = ((Number) row[2]).longValue();
+                rows++;
+            }
+        } while (chunk.size() == LOAD_CHUNK_SIZE && rows < capacity);
+
+        return InteractionMatrix.of(userIds, movieIds, rows);
+    }
+
+    // Leaf results arrive from every worker; writing them one at a time keeps the job on a single connection.
+    private int writeNeighbors(
+        long[] movieIds,
+        int[] ranks,
+        long[] similarMovieIds,
+        float[] scores,
+        int size,
+        LocalDateTime computedAt
+    ) {
+        Long[] boxedMovieIds = Arrays.stream(movieIds, 0, size).boxed().toArray(Long[]::new);
+        Integer[] boxedRanks = Arrays.stream(ranks, 0, size).boxed().toArray(Integer[]::new);
+        Long[] boxedSimilarMovieIds = Arrays.stream(similarMovieIds, 0, size).boxed().toArray(Long[]::new);
+        Float[] boxedScores = IntStream.range(0, size).mapToObj(i -> scores[i]).toArray(Float[]::new);
+
+        synchronized (writeLock) {
+            return movieSimilarityRepository.upsertAll(boxedMovieIds, boxedRanks, boxedSimilarMovieIds, boxedScores, computedAt);
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.PosterCacheProperties;
+import com.mahmoud.movieChecker.entity.MovieDetails;
+import com.mahmoud.movieChecker.exception.InvalidRequestDataException;
+import com.mahmoud.movieChecker.exception.MovieNotFoundException;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * Fetches each poster once and keeps it on disk, so browsers load posters from
+ * us instead of the third-party image hosts.
+ *
+ * <p>Images are stored by the SHA-256 of their content under {@code blobs/},
+ * next to their thumbnails, and {@code refs/} maps a poster url (by its
+ * version, a hash of the url) to the stored image. The local poster urls
+ * carry that version, so they never change meaning and can be cached forever.
+ * Beyond the configured size the least recently served images are deleted;
+ * a ref left pointing at a deleted image just makes the next request fetch
+ * it again. Images served within the eviction grace period are kept even
+ * over the size, since the response may still be sending them (Tomcat's
+ * sendfile opens the file after the controller returned).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PosterCacheService {
+    private static final int VERSION_LENGTH = 16;
+    private static final String THUMBNAIL_TYPE = "image/jpeg";
+
+    @Value("${websiteBackendUrl}")
+    private String backendUrl;
+
+    private final PosterCacheProperties properties;
+    private final MovieDetailsRepository movieDetailsRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Concurrent requests for a poster that isn't stored yet share one fetch.
+    private final Map<String, CompletableFuture<Optional<Ref>>> fetches = new ConcurrentHashMap<>();
+
+    // Stored images by content hash, least recently served first.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    public record Poster(Path file, String contentType, String etag, long size) {
+    }
+
+    private record Ref(String contentHash, String contentType) {
+    }
+
+    private static final class Entry {
+        // On disk, image plus thumbnails.
+        private final long bytes;
+
+        // System.nanoTime() until which eviction leaves the image alone.
+        private long servingUntil;
+
+        private Entry(long bytes, long servingUntil) {
+            this.bytes = bytes;
+            this.servingUntil = servingUntil;
+        }
+    }
+
+    @PostConstruct
+    void loadIndex() throws IOException {
+        Files.createDirectories(blobs());
+        Files.createDirectories(refs());
+
+        Map<String, Long> bytes = new HashMap<>();
+        Map<String, FileTime> lastModified = new HashMap<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(blobs())) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+
+                // Left over from a fetch cut short by a restart.
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+
+                String hash = name.contains("-") ? name.substring(0, name.indexOf('-')) : name;
+
+                bytes.merge(hash, Files.size(file), Long::sum);
+                lastModified.merge(hash, Files.getLastModifiedTime(file), (a, b) -> a.compareTo(b) > 0 ? a : b);
+            }
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+
+            bytes.keySet().stream()
+                    .sorted(Comparator.comparing(lastModified::get))
+                    .forEach(hash -> entries.put(hash, new Entry(bytes.get(hash), now)));
+
+            cachedBytes = bytes.values().stream().mapToLong(Long::longValue).sum();
+            evict();
+        }
+
+        Gauge.builder("moviechecker.posters.cached_bytes", this, PosterCacheService::cachedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The url the API hands out for a movie's poster: ours when the poster
+     * cache is on and the poster is a remote image, the original otherwise.
+     */
+    public String localUrl(String imdbId, String posterUrl) {
+        if (!properties.isEnabled() || imdbId == null || !isRemote(posterUrl)) {
+            return posterUrl;
+        }
+
+        return backendUrl + "/movies/posters/" + UriUtils.encodePathSegment(imdbId, StandardCharsets.UTF_8)
+                + "/" + versionOf(posterUrl);
+    }
+
+    // The original url behind a local poster url, as long as the movie still has that poster.
+    public String sourceUrl(String imdbId, String version) {
+        return movieDetailsRepository.findByImdbId(imdbId)
+                .map(MovieDetails::getPosterUrl)
+                .filter(posterUrl -> isRemote(posterUrl) && versionOf(posterUrl).equals(version))
+                .orElseThrow(MovieNotFoundException::new);
+    }
+
+    /**
+     * The stored poster (or its thumbnail), fetched first if needed. Empty
+     * when the image host doesn't give us an image.
+     */
+    public Optional<Poster> getPoster(String sourceUrl, Integer width) {
+        if (width != null && !properties.getThumbnailWidths().contains(width)) {
+            throw new InvalidRequestDataException("Unsupported poster width: " + width);
+        }
+
+        String version = versionOf(sourceUrl);
+        Optional<Ref> ref = readRef(version).filter(stored -> serve(stored.contentHash()));
+
+        meterRegistry.counter("moviechecker.posters.lookups", "result", ref.isPresent() ? "hit" : "miss").increment();
+
+        if (ref.isEmpty()) {
+            ref = fetchOnce(sourceUrl, version);
+        }
+
+        Optional<Poster> poster = ref.flatMap(stored -> poster(stored, width));
+
+        // Deleted after all (evicted before a slow fetch returned, or by hand): fetch it again, once.
+        if (ref.isPresent() && poster.isEmpty()) {
+            meterRegistry.counter("moviechecker.posters.lookups", "result", "refetch").increment();
+            poster = fetchOnce(sourceUrl, version).flatMap(stored -> poster(stored, width));
+        }
+
+        return poster;
+    }
+
+    synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    static String versionOf(String posterUrl) {
+        return HexFormat.of().formatHex(sha256().digest(posterUrl.getBytes(StandardCharsets.UTF_8)))
+                .substring(0, VERSION_LENGTH);
+    }
+
+    private Optional<Ref> fetchOnce(String sourceUrl, String version) {
+        CompletableFuture<Optional<Ref>> fetch = new CompletableFuture<>();
+        CompletableFuture<Optional<Ref>> running = fetches.putIfAbsent(version, fetch);
+
+        if (running != null) {
+            return running.join();
+        }
+
+        try {
+            // Another request may have stored it between our lookup and now.
+            Optional<Ref> ref = readRef(version).or(() -> fetch(sourceUrl, version));
+
+            fetch.complete(ref);
+
+            return ref;
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            fetches.remove(version);
+        }
+    }
+
+    private Optional<Ref> fetch(String sourceUrl, String version) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        Path download = null;
+        SizeLimitedFile body = null;
+
+        try {
+            download = Files.createTempFile(blobs(), "fetch-", ".tmp");
+            body = new SizeLimitedFile(download, properties.getMaxDownloadSize().toBytes());
+
+            HttpResponse<Path> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(sourceUrl)).timeout(properties.getFetchTimeout()).GET().build(),
+                body
+            );
+
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+
+            if (response.statusCode() != 200 || !contentType.startsWith("image/")) {
+                outcome = "not_an_image";
+                return Optional.empty();
+            }
+
+            String contentHash = contentHashOf(download);
+            Path blob = blob(contentHash);
+
+            Files.move(download, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long bytes = Files.size(blob) + writeThumbnails(blob, contentHash);
+            Ref ref = new Ref(contentHash, contentType);
+
+            writeRef(version, ref);
+            store(contentHash, bytes);
+            outcome = "success";
+
+            return Optional.of(ref);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            if (body != null && body.exceeded) {
+                outcome = "too_large";
+                log.warn("Poster {} is over {}, not storing it", sourceUrl, properties.getMaxDownloadSize());
+            } else {
+                log.warn("Couldn't fetch poster {}: {}", sourceUrl, e.toString());
+            }
+
+            return Optional.empty();
+        } finally {
+            deleteQuietly(download);
+            sample.stop(meterRegistry.timer("moviechecker.posters.fetch", "outcome", outcome));
+        }
+    }
+
+    private long writeThumbnails(Path blob, String contentHash) throws IOException {
+        if (properties.getThumbnailWidths().isEmpty()) {
+            return 0;
+        }
+
+        BufferedImage image = ImageIO.read(blob.toFile());
+
+        if (image == null) {
+            return 0;
+        }
+
+        long bytes = 0;
+
+        for (int width : properties.getThumbnailWidths()) {
+            if (width <= 0 || width >= image.getWidth()) {
+                continue;
+            }
+
+            int height = Math.max(1, Math.round(image.getHeight() * (float) width / image.getWidth()));
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+            graphics.dispose();
+
+            Path thumbnail = thumbnail(contentHash, width);
+            Path temp = Files.createTempFile(blobs(), "thumbnail-", ".tmp");
+
+            try {
+                ImageIO.write(scaled, "jpg", temp.toFile());
+                Files.move(temp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                deleteQuietly(temp);
+            }
+
+            bytes += Files.size(thumbnail);
+        }
+
+        return bytes;
+    }
+
+    private Optional<Ref> readRef(String version) {
+        try {
+            List<String> lines = Files.readAllLines(refs().resolve(version));
+            Ref ref = new Ref(lines.get(0), lines.get(1));
+
+            return Files.exists(blob(ref.contentHash())) ? Optional.of(ref) : Optional.empty();
+        } catch (IOException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void writeRef(String version, Ref ref) throws IOException {
+        Path temp = Files.createTempFile(refs(), version, ".tmp");
+
+        try {
+            Files.writeString(temp, ref.contentHash() + "\n" + ref.contentType() + "\n");
+            Files.move(temp, refs().resolve(version), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    // The fetching request serves the image right away, so it starts out within the grace period.
+    private synchronized void store(String contentHash, long bytes) {
+        Entry previous = entries.put(contentHash, new Entry(bytes, System.nanoTime() + properties.getEvictionGracePeriod().toNanos()));
+
+        cachedBytes += bytes - (previous == null ? 0 : previous.bytes);
+        evict();
+    }
+
+    // False when the image was evicted since its ref was read; once this returns true it stays until the grace period is over.
+    private synchronized boolean serve(String contentHash) {
+        Entry entry = entries.get(contentHash);
+
+        if (entry == null) {
+            return false;
+        }
+
+        entry.servingUntil = System.nanoTime() + properties.getEvictionGracePeriod().toNanos();
+
+        return true;
+    }
+
+    // Keeps at least the most recent image, even when it alone is over the limit.
+    private void evict() {
+        long maxBytes = properties.getMaxSize().toBytes();
+        long now = System.nanoTime();
+        List<String> evicted = new ArrayList<>();
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while (cachedBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+
+            // Entries are in serving order, so everything after it was served within the grace period too.
+            if (eldest.getValue().servingUntil - now > 0) {
+                break;
+            }
+
+            cachedBytes -= eldest.getValue().bytes;
+            evicted.add(eldest.getKey());
+            iterator.remove();
+        }
+
+        for (String contentHash : evicted) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(blobs(), contentHash + "*")) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("Couldn't evict poster {}: {}", contentHash, e.toString());
+            }
+        }
+    }
+
+    private Optional<Poster> poster(Ref ref, Integer width) {
+        // Images narrower than the width (or that ImageIO can't read) have no thumbnail, they get the original.
+        if (width != null) {
+            Optional<Poster> thumbnail = poster(thumbnail(ref.contentHash(), width), THUMBNAIL_TYPE, ref.contentHash() + "-" + width);
+
+            if (thumbnail.isPresent()) {
+                return thumbnail;
+            }
+        }
+
+        return poster(blob(ref.contentHash()), ref.contentType(), ref.contentHash());
+    }
+
+    // Empty when the file is gone.
+    private static Optional<Poster> poster(Path file, String contentType, String etag) {
+        try {
+            return Optional.of(new Poster(file, contentType, "\"" + etag + "\"", Files.size(file)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String contentHashOf(Path file) throws IOException {
+        MessageDigest digest = sha256();
+
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isRemote(String posterUrl) {
+        return posterUrl != null && (posterUrl.startsWith("http://") || posterUrl.startsWith("https://"));
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writes the response body to a file, but gives up (and fails the request)
+     * as soon as the declared length or the bytes received go over maxBytes.
+     */
+    private static final class SizeLimitedFile implements HttpResponse.BodyHandler<Path> {
+        private final Path file;
+        private final long maxBytes;
+        private volatile boolean exceeded;
+
+        private SizeLimitedFile(Path file, long maxBytes) {
+            this.file = file;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public HttpResponse.BodySubscriber<Path> apply(HttpResponse.ResponseInfo responseInfo) {
+            HttpResponse.BodySubscriber<Path> delegate = HttpResponse.BodySubscribers.ofFile(file);
+            long declared = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+            return new HttpResponse.BodySubscriber<>() {
+                private Flow.Subscription subscription;
+                private long received;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+
+                    if (declared > maxBytes) {
+                        exceed();
+                    } else {
+                        delegate.onSubscribe(subscription);
+                    }
+                }
+
+                @Override
+                public void onNext(List<ByteBuffer> items) {
+                    if (exceeded) {
+                        return;
+                    }
+
+                    for (ByteBuffer item : items) {
+                        received += item.remaining();
+                    }
+
+                    if (received > maxBytes) {
+                        exceed();
+                    } else {
+                        delegate.onNext(items);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    if (!exceeded) {
+                        delegate.onError(throwable);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    if (!exceeded) {
+                        delegate.onComplete();
+                    }
+                }
+
+                @Override
+                public CompletionStage<Path> getBody() {
+                    return delegate.getBody();
+                }
+
+                private void exceed() {
+                    exceeded = true;
+                    subscription.cancel();
+                    delegate.onError(new IOException("Response body is over " + maxBytes + " bytes"));
+                }
+            };
+        }
+    }
+
+    private Path blobs() {
+        return properties.getDirectory().resolve("blobs");
+    }
+
+    private Path refs() {
+        return properties.getDirectory().resolve("refs");
+    }
+
+    private Path blob(String contentHash) {
+        return blobs().resolve(contentHash);
+    }
+
+    private Path thumbnail(String contentHash, int width) {
+        return blobs().resolve(contentHash + "-" + width + ".jpg");
+    }
+}
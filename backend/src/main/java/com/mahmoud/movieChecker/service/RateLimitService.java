@@ -0,0 +1,186 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.RateLimitProperties;
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets, one table per {@link RateLimit.Endpoint}.
+ *
+ * <p>A bucket is a single AtomicLong holding the time at which it will be
+ * full again (the GCRA form of a token bucket): a request moves it one refill
+ * interval into the future and is refused when that would put it more than
+ * the capacity's worth of intervals ahead of now. Taking a token is one CAS,
+ * no locks.
+ *
+ * <p>A bucket that is full again behaves exactly like a missing one, so the
+ * scheduled sweep drops those without changing any outcome. Each table is
+ * split into stripes of bounded size; when a client's stripe is full, new
+ * clients in it share one overflow bucket until the sweep makes room, which
+ * keeps memory bounded no matter how many distinct clients show up.
+ *
+ * <p>Meters: moviechecker.ratelimit.requests (endpoint, result = allowed,
+ * throttled) and the gauge moviechecker.ratelimit.clients (endpoint).
+ */
+@Service
+public class RateLimitService {
+    private final RateLimitProperties properties;
+    private final Map<RateLimit.Endpoint, Table> tables = new EnumMap<>(RateLimit.Endpoint.class);
+
+    public RateLimitService(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        int stripes = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1)) << 1;
+
+        for (RateLimit.Endpoint endpoint : RateLimit.Endpoint.values()) {
+            RateLimitProperties.Limit limit = properties.getLimits().get(endpoint);
+
+            if (limit == null || limit.getCapacity() < 1 || limit.getRefillPerSecond() <= 0) {
+                throw new IllegalStateException("rate-limit.limits." + endpoint.name().toLowerCase() + " needs a capacity and refill-per-second");
+            }
+
+            Table table = new Table(limit, stripes, Math.max(1, properties.getMaxClients() / stripes), meterRegistry, endpoint);
+
+            Gauge.builder("moviechecker.ratelimit.clients", table, Table::size)
+                    .tag("endpoint", endpoint.name().toLowerCase())
+                    .register(meterRegistry);
+
+            tables.put(endpoint, table);
+        }
+    }
+
+    /**
+     * Takes a token from the client's bucket. Returns zero when the request
+     * may go ahead, otherwise how long until it would.
+     */
+    public Duration tryAcquire(RateLimit.Endpoint endpoint, long client) {
+        if (!properties.isEnabled()) {
+            return Duration.ZERO;
+        }
+
+        return Duration.ofNanos(tables.get(endpoint).tryAcquire(client, System.nanoTime()));
+    }
+
+    // A user id as is, an address hashed into the negative longs, so the two never meet.
+    public static long clientKey(Long userId, String address) {
+        if (userId != null) {
+            return userId;
+        }
+
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < address.length(); i++) {
+            hash = (hash ^ address.charAt(i)) * 0x100000001b3L;
+        }
+
+        return hash | Long.MIN_VALUE;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:30s}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+
+        for (Table table : tables.values()) {
+            table.evictFull(now);
+        }
+    }
+
+    long trackedClients(RateLimit.Endpoint endpoint) {
+        return tables.get(endpoint).size();
+    }
+
+    private static final class Table {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final int maxPerStripe;
+        private final ConcurrentHashMap<Long, AtomicLong>[] stripes;
+        private final AtomicLong[] overflow;
+        private final Counter allowed;
+        private final Counter throttled;
+
+        @SuppressWarnings("unchecked")
+        private Table(RateLimitProperties.Limit limit, int stripes, int maxPerStripe, MeterRegistry meterRegistry, RateLimit.Endpoint endpoint) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+            this.burstNanos = intervalNanos * limit.getCapacity();
+            this.maxPerStripe = maxPerStripe;
+            this.stripes = new ConcurrentHashMap[stripes];
+            this.overflow = new AtomicLong[stripes];
+
+            for (int i = 0; i < stripes; i++) {
+                this.stripes[i] = new ConcurrentHashMap<>();
+                this.overflow[i] = new AtomicLong(Long.MIN_VALUE);
+            }
+
+            String name = endpoint.name().toLowerCase();
+            this.allowed = meterRegistry.counter("moviechecker.ratelimit.requests", "endpoint", name, "result", "allowed");
+            this.throttled = meterRegistry.counter("moviechecker.ratelimit.requests", "endpoint", name, "result", "throttled");
+        }
+
+        private long tryAcquire(long client, long now) {
+            AtomicLong bucket = bucket(client);
+
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt, now) + intervalNanos;
+                long wait = next - now - burstNanos;
+
+                if (wait > 0) {
+                    throttled.increment();
+                    return wait;
+                }
+
+                if (bucket.compareAndSet(fullAt, next)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        private AtomicLong bucket(long client) {
+            // Fibonacci hashing, user ids are sequential.
+            int stripe = (int) ((client * 0x9E3779B97F4A7C15L) >>> 32) & (stripes.length - 1);
+            ConcurrentHashMap<Long, AtomicLong> buckets = stripes[stripe];
+            AtomicLong bucket = buckets.get(client);
+
+            if (bucket != null) {
+                return bucket;
+            }
+
+            // Checked without a lock, so a stripe may go over by a bucket per concurrent request.
+            if (buckets.size() >= maxPerStripe) {
+                return overflow[stripe];
+            }
+
+            return buckets.computeIfAbsent(client, key -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        // A request racing with the removal may lose its token, letting the client through once more.
+        private void evictFull(long now) {
+            for (ConcurrentHashMap<Long, AtomicLong> buckets : stripes) {
+                buckets.values().removeIf(bucket -> bucket.get() <= now);
+            }
+        }
+
+        private long size() {
+            long size = 0;
+
+            for (ConcurrentHashMap<Long, AtomicLong> buckets : stripes) {
+                size += buckets.mappingCount();
+            }
+
+            return size;
+        }
+    }
+}
@@ -3,15 +3,20 @@ package com.mahmoud.movieChecker.service;
 import com.mahmoud.movieChecker.dto.ChangeMovieFavoriteRequest;
 import com.mahmoud.movieChecker.dto.ChangeMovieStatusRequest;
 import com.mahmoud.movieChecker.dto.ChangeUserRateRequest;
+import com.mahmoud.movieChecker.dto.UserMoviesStatsResponse;
 import com.mahmoud.movieChecker.entity.MovieDetails;
 import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.entity.User;
 import com.mahmoud.movieChecker.entity.UserMovies;
 import com.mahmoud.movieChecker.exception.InvalidRequestDataException;
 import com.mahmoud.movieChecker.exception.UserDoesNotHaveTheMovieException;
 import com.mahmoud.movieChecker.repository.UserMoviesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -22,8 +27,18 @@ public class UserMoviesService {
     private final UserMoviesRepository userMoviesRepository;
     private final MovieDetailsService movieDetailsService;
     private final AuthService authService;
+    private final UserMoviesStatsService userMoviesStatsService;
+    private final MoviePopularityService moviePopularityService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
 
+    @Transactional(readOnly = true)
     public List<UserMovies> getUserMovies(MovieStatus status, Boolean favorite) {
+        return meterRegistry.timer("moviechecker.user_movies.query")
+                .record(() -> findUserMovies(status, favorite));
+    }
+
+    private List<UserMovies> findUserMovies(MovieStatus status, Boolean favorite) {
         if (status == null && favorite == null) {
             return userMoviesRepository.findAllByUser(authService.getCurrentUser());
         } else if (status == null) {
@@ -35,16 +50,26 @@ public class UserMoviesService {
         }
     }
 
+    public UserMoviesStatsResponse getUserMoviesStats() {
+        return userMoviesStatsService.getStats(authService.getCurrentUserId());
+    }
+
+    // The movie is looked up (or fetched from OMDb) before the transaction, so no connection waits on the HTTP call.
     public void updateMovieStatus(ChangeMovieStatusRequest request) {
-        String movieTitle = request.getTitle().trim();
-        MovieStatus movieStatus = request.getStatus();
+        MovieDetails movieDetails = movieDetailsService.getMovieDetails(request.getTitle().trim());
 
-        MovieDetails movieDetails = movieDetailsService.getMovieDetails(movieTitle);
+        transactionTemplate.executeWithoutResult(transaction -> updateMovieStatus(movieDetails, request.getStatus()));
+    }
+
+    private void updateMovieStatus(MovieDetails movieDetails, MovieStatus movieStatus) {
+        User user = authService.getCurrentUser();
 
         UserMovies userMovie = userMoviesRepository
-                            .findByMovieDetailsAndUser(movieDetails, authService.getCurrentUser())
+                            .findByMovieDetailsAndUser(movieDetails, user)
                             .orElse(null);
 
+        UserMoviesSnapshot before = UserMoviesSnapshot.of(userMovie);
+
         if (movieStatus == null) {
             if (userMovie == null) {
                 throw new UserDoesNotHaveTheMovieException("You already don't have this movie in any list.");
@@ -52,6 +77,7 @@ public class UserMoviesService {
 
             if (!userMovie.getIsFavorite()) {
                 userMoviesRepository.delete(userMovie);
+                recordChange(user, movieDetails, before, UserMoviesSnapshot.ABSENT);
                 return;
             }
         }
@@ -71,53 +97,65 @@ public class UserMoviesService {
                     .isFavorite(false)
                     .addedAt(LocalDate.now())
                     .movieDetails(movieDetails)
-                    .user(authService.getCurrentUser())
+                    .user(user)
                     .build();
         }
 
         userMovie.setStatus(movieStatus);
 
         userMoviesRepository.save(userMovie);
+        recordChange(user, userMovie.getMovieDetails(), before, UserMoviesSnapshot.of(userMovie));
     }
 
     public void updateMovieFavorite(ChangeMovieFavoriteRequest request) {
-        String movieTitle = request.getTitle().trim();
-        boolean isFavorite = request.isFavorite();
+        MovieDetails movieDetails = movieDetailsService.getMovieDetails(request.getTitle().trim());
 
-        MovieDetails movieDetails = movieDetailsService.getMovieDetails(movieTitle);
+        transactionTemplate.executeWithoutResult(transaction -> updateMovieFavorite(movieDetails, request.isFavorite()));
+    }
+
+    private void updateMovieFavorite(MovieDetails movieDetails, boolean isFavorite) {
+        User user = authService.getCurrentUser();
 
         UserMovies userMovie = userMoviesRepository
-                            .findByMovieDetailsAndUser(movieDetails, authService.getCurrentUser())
+                            .findByMovieDetailsAndUser(movieDetails, user)
                             .orElse(null);
 
+        UserMoviesSnapshot before = UserMoviesSnapshot.of(userMovie);
+
         if (!isFavorite) {
             if (userMovie == null) {
                 throw new UserDoesNotHaveTheMovieException("You already don't have this movie in favorites.");
             } else if (userMovie.getStatus() == null) {
                 userMoviesRepository.delete(userMovie);
+                recordChange(user, movieDetails, before, UserMoviesSnapshot.ABSENT);
             } else {
                 userMovie.setIsFavorite(false);
                 userMoviesRepository.save(userMovie);
+                recordChange(user, userMovie.getMovieDetails(), before, UserMoviesSnapshot.of(userMovie));
             }
 
             return;
         } else if (userMovie == null) {
             userMovie = UserMovies.builder()
                     .movieDetails(movieDetails)
-                    .user(authService.getCurrentUser())
+                    .user(user)
                     .build();
         }
 
         userMovie.setIsFavorite(true);
 
         userMoviesRepository.save(userMovie);
+        recordChange(user, userMovie.getMovieDetails(), before, UserMoviesSnapshot.of(userMovie));
     }
 
+    @Transactional
     public void updateUserRate(ChangeUserRateRequest request) {
+        User user = authService.getCurrentUser();
+
         UserMovies userMovie = userMoviesRepository
                     .findByMovieTitleIgnoreCaseAndUser(
                         request.getTitle().trim(),
-                        authService.getCurrentUser(),
+                        user,
                         PageRequest.of(0, 1)
                     )
                     .stream()
@@ -132,7 +170,17 @@ public class UserMoviesService {
             throw new InvalidRequestDataException("Rate must be at most 10.0 and cannot be negative.");
         }
 
+        UserMoviesSnapshot before = UserMoviesSnapshot.of(userMovie);
+
         userMovie.setUserRate(request.getRate());
         userMoviesRepository.save(userMovie);
+        recordChange(user, userMovie.getMovieDetails(), before, UserMoviesSnapshot.of(userMovie));
+    }
+
+    private void recordChange(User user, MovieDetails movieDetails, UserMoviesSnapshot before, UserMoviesSnapshot after) {
+        meterRegistry.timer("moviechecker.user_movies.record_change").record(() -> {
+            userMoviesStatsService.applyChange(user.getId(), before, after);
+            moviePopularityService.recordChange(movieDetails.getId(), before, after);
+        });
     }
 }
@@ -0,0 +1,35 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.entity.UserMovies;
+
+import java.time.LocalDate;
+
+/**
+ * The parts of a user_movies row the collection aggregates depend on, captured before and after a mutation.
+ */
+public record UserMoviesSnapshot(
+    boolean present,
+    MovieStatus status,
+    boolean favorite,
+    Double userRate,
+    LocalDate addedAt,
+    long genreMask
+) {
+    public static final UserMoviesSnapshot ABSENT = new UserMoviesSnapshot(false, null, false, null, null, 0);
+
+    public static UserMoviesSnapshot of(UserMovies userMovie) {
+        if (userMovie == null) {
+            return ABSENT;
+        }
+
+        return new UserMoviesSnapshot(
+            true,
+            userMovie.getStatus(),
+            Boolean.TRUE.equals(userMovie.getIsFavorite()),
+            userMovie.getUserRate(),
+            userMovie.getAddedAt(),
+            (userMovie.getMovieDetails().getGenreMask() == null)? 0 : userMovie.getMovieDetails().getGenreMask()
+        );
+    }
+}
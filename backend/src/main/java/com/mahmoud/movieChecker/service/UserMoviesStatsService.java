@@ -0,0 +1,95 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.dto.GenreCount;
+import com.mahmoud.movieChecker.dto.MonthCount;
+import com.mahmoud.movieChecker.dto.UserMoviesStatsResponse;
+import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.entity.UserMoviesStats;
+import com.mahmoud.movieChecker.repository.UserMoviesStatsRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+@Service
+@AllArgsConstructor
+public class UserMoviesStatsService {
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final UserMoviesStatsRepository userMoviesStatsRepository;
+    private final GenreService genreService;
+
+    @Transactional(readOnly = true)
+    public UserMoviesStatsResponse getStats(Long userId) {
+        UserMoviesStats stats = userMoviesStatsRepository.findById(userId)
+                .orElseGet(() -> new UserMoviesStats(userId, 0, 0, 0, 0, 0.0, 0L));
+
+        Double averageUserRate = (stats.getRatedCount() == 0)?
+                null : Math.round(stats.getUserRateSum() / stats.getRatedCount() * 10) / 10.0;
+
+        Map<String, Long> genres = new LinkedHashMap<>();
+        for (GenreCount genreCount : userMoviesStatsRepository.findGenreCounts(userId)) {
+            genres.put(genreCount.getGenre(), genreCount.getCount());
+        }
+
+        Map<String, Long> addedPerMonth = new LinkedHashMap<>();
+        for (MonthCount monthCount : userMoviesStatsRepository.findMonthCounts(userId)) {
+            addedPerMonth.put(monthCount.getMonth().format(MONTH_FORMAT), monthCount.getCount());
+        }
+
+        return new UserMoviesStatsResponse(
+            stats.getWatchedCount(),
+            stats.getWatchListCount(),
+            stats.getFavoriteCount(),
+            averageUserRate,
+            genres,
+            addedPerMonth
+        );
+    }
+
+    // Must run inside the transaction that applies the user_movies change itself.
+    public void applyChange(Long userId, UserMoviesSnapshot before, UserMoviesSnapshot after) {
+        int watched = countIf(after.status() == MovieStatus.WATCHED) - countIf(before.status() == MovieStatus.WATCHED);
+        int watchList = countIf(after.status() == MovieStatus.WATCH_LIST) - countIf(before.status() == MovieStatus.WATCH_LIST);
+        int favorite = countIf(after.favorite()) - countIf(before.favorite());
+        int rated = countIf(after.userRate() != null) - countIf(before.userRate() != null);
+        double userRateSum = valueOf(after.userRate()) - valueOf(before.userRate());
+
+        // Always applied, even without counter changes, since it also bumps the collection version.
+        userMoviesStatsRepository.addToStats(userId, watched, watchList, favorite, rated, userRateSum);
+
+        if (before.present() == after.present()) {
+            return;
+        }
+
+        int delta = after.present()? 1 : -1;
+        UserMoviesSnapshot changed = after.present()? after : before;
+
+        List<String> genres = genreService.namesOf(changed.genreMask());
+        if (!genres.isEmpty()) {
+            Integer[] deltas = new Integer[genres.size()];
+            Arrays.fill(deltas, delta);
+
+            userMoviesStatsRepository.addToGenreStats(userId, genres.toArray(String[]::new), deltas);
+        }
+
+        if (changed.addedAt() != null) {
+            userMoviesStatsRepository.addToMonthlyStats(
+                userId,
+                new LocalDate[] { changed.addedAt().withDayOfMonth(1) },
+                new Integer[] { delta }
+            );
+        }
+    }
+
+    private int countIf(boolean condition) {
+        return condition? 1 : 0;
+    }
+
+    private double valueOf(Double rate) {
+        return (rate == null)? 0.0 : rate;
+    }
+}
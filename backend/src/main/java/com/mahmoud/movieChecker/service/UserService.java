@@ -8,24 +8,35 @@ import com.mahmoud.movieChecker.entity.User;
 import com.mahmoud.movieChecker.exception.*;
 import com.mahmoud.movieChecker.mapper.UserMapper;
 import com.mahmoud.movieChecker.repository.ResetInfoVerificationCodeRepository;
+import com.mahmoud.movieChecker.repository.UserMoviesRepository;
 import com.mahmoud.movieChecker.repository.UserRepository;
+import com.mahmoud.movieChecker.repository.UserSpecifications;
 import com.mahmoud.movieChecker.security.jwt.Jwt;
 import com.mahmoud.movieChecker.security.jwt.JwtService;
 import com.mahmoud.movieChecker.security.jwt.Token;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 @Service
 @AllArgsConstructor
 public class UserService {
+    private static final int USER_MOVIES_DELETE_CHUNK_SIZE = 5000;
+    private static final int MAX_USERS_PAGE_SIZE = 500;
+    private static final int USERS_EXPORT_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final UserMoviesRepository userMoviesRepository;
+    private final CacheVersionService cacheVersionService;
     private final ResetInfoVerificationCodeRepository resetInfoVerificationCodeRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
@@ -61,15 +72,76 @@ public class UserService {
         return userMapper.toDto(user);
     }
 
-    public List<UserDto> getAllUsers() {
-        List<UserDto> userDtoList = new ArrayList<>();
+    public UserPageResponse getUsers(Long afterId, int limit, String email, String name, Role role) {
+        if (limit < 1 || limit > MAX_USERS_PAGE_SIZE) {
+            throw new InvalidRequestDataException("Limit must be between 1 and " + MAX_USERS_PAGE_SIZE + ".");
+        }
+
+        List<User> users = findUsersAfter(afterId, limit, email, name, role);
+        Long nextAfterId = (users.size() == limit)? users.getLast().getId() : null;
+
+        return new UserPageResponse(users.stream().map(userMapper::toDto).toList(), nextAfterId);
+    }
+
+    public void exportUsers(String email, String name, Role role, Writer writer) throws IOException {
+        writer.write("id,name,email,role,enabled,join_date\n");
+
+        Long afterId = null;
+        List<User> users;
+
+        do {
+            users = findUsersAfter(afterId, USERS_EXPORT_CHUNK_SIZE, email, name, role);
+
+            for (User user : users) {
+                writer.write(String.join(",",
+                    String.valueOf(user.getId()),
+                    toCsvField(user.getName()),
+                    toCsvField(user.getEmail()),
+                    String.valueOf(user.getRole()),
+                    String.valueOf(user.getEnabled()),
+                    (user.getJoinDate() == null)? "" : user.getJoinDate().toString()
+                ));
+                writer.write("\n");
+            }
+
+            writer.flush();
+
+            if (!users.isEmpty()) {
+                afterId = users.getLast().getId();
+            }
+        } while (users.size() == USERS_EXPORT_CHUNK_SIZE);
+    }
+
+    private List<User> findUsersAfter(Long afterId, int limit, String email, String name, Role role) {
+        Specification<User> specification = Specification.allOf(
+            UserSpecifications.idGreaterThan(afterId),
+            UserSpecifications.emailStartsWith(email),
+            UserSpecifications.nameContains(name),
+            UserSpecifications.hasRole(role)
+        );
+
+        return userRepository.findBy(specification, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(limit)
+                .all()
+        );
+    }
+
+    private String toCsvField(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        // Spreadsheets would run a leading =, +, -, @ (or tab / carriage return) as a formula.
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
 
-        userRepository.findAll()
-                .forEach(user ->
-                        userDtoList.add(userMapper.toDto(user))
-                );
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
 
-        return userDtoList;
+        return value;
     }
 
     public void updateUserName(Long userId, ChangeNameRequest request) {
@@ -99,8 +171,26 @@ public class UserService {
     }
 
     public void deleteUser(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
-        userRepository.delete(user);
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException();
+        }
+
+        // Each chunk commits on its own so a large collection never holds one long transaction. A chunk
+        // subtracts its rows from the popularity counters as it deletes them, so a retry never subtracts twice.
+        int deletedUserMovies;
+        boolean popularityChanged = false;
+
+        do {
+            deletedUserMovies = userMoviesRepository.deleteChunkByUserId(userId, USER_MOVIES_DELETE_CHUNK_SIZE);
+            popularityChanged |= deletedUserMovies > 0;
+        } while (deletedUserMovies == USER_MOVIES_DELETE_CHUNK_SIZE);
+
+        if (popularityChanged) {
+            cacheVersionService.catalogChanged();
+        }
+
+        // Verification tokens and reset codes are removed by their ON DELETE CASCADE foreign keys.
+        userRepository.deleteUserById(userId);
     }
 
     @Transactional
@@ -0,0 +1,7 @@
+-- Case-insensitive prefix index for the title suggestions, the text_pattern_ops index on the raw title
+-- can't serve ILIKE so suggest was scanning the whole table
+
+DROP INDEX movie_checker.idx_movie_title_prefix;
+
+CREATE INDEX idx_movie_title_lower_prefix
+ON movie_checker.movie_details (LOWER(title) text_pattern_ops);
@@ -0,0 +1,11 @@
+-- When OMDb metadata was last fetched for each movie, behind CatalogRefreshService.
+-- Movies stored so far were never refreshed (NULL), new ones are fresh when inserted.
+
+ALTER TABLE movie_checker.movie_details
+ADD COLUMN last_refreshed_at TIMESTAMP;
+
+ALTER TABLE movie_checker.movie_details
+ALTER COLUMN last_refreshed_at SET DEFAULT now();
+
+CREATE INDEX idx_movie_details_last_refreshed_at
+ON movie_checker.movie_details (last_refreshed_at NULLS FIRST);
@@ -0,0 +1,4 @@
+-- /movies/browse pages filtered by type alone are keyed on id, (type, year, id) returns them by year
+
+CREATE INDEX idx_movie_type
+ON movie_checker.movie_details (type, id);
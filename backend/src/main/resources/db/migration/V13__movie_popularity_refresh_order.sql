@@ -0,0 +1,4 @@
+-- CatalogRefreshService takes the most watched and favorited stale movies first, walking this index
+
+CREATE INDEX idx_movie_popularity_watched_favorite_count
+ON movie_checker.movie_popularity ((watched_count + favorite_count) DESC);
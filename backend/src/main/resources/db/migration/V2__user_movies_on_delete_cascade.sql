@@ -0,0 +1,7 @@
+ALTER TABLE movie_checker.user_movies
+DROP CONSTRAINT fk_t_user_movies_c_user_id;
+
+ALTER TABLE movie_checker.user_movies
+ADD CONSTRAINT fk_t_user_movies_c_user_id
+    FOREIGN KEY (user_id) REFERENCES movie_checker.users(id)
+    ON DELETE CASCADE;
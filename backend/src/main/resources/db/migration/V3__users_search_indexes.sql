@@ -0,0 +1,10 @@
+-- Indexes for the admin users listing (email prefix, name search, role filter with id keyset)
+
+CREATE INDEX idx_users_email_lower_prefix
+ON movie_checker.users (LOWER(email) text_pattern_ops);
+
+CREATE INDEX idx_users_name_lower_trgm
+ON movie_checker.users USING gin (LOWER(name) gin_trgm_ops);
+
+CREATE INDEX idx_users_role_id
+ON movie_checker.users (role, id);
@@ -0,0 +1,69 @@
+-- Per-user collection aggregates, maintained by UserMoviesService on every user_movies change
+
+CREATE TABLE movie_checker.user_movies_stats (
+    user_id BIGINT PRIMARY KEY,
+    watched_count INT NOT NULL DEFAULT 0,
+    watch_list_count INT NOT NULL DEFAULT 0,
+    favorite_count INT NOT NULL DEFAULT 0,
+    rated_count INT NOT NULL DEFAULT 0,
+    user_rate_sum DECIMAL(12, 1) NOT NULL DEFAULT 0,
+
+    CONSTRAINT fk_t_user_movies_stats_c_user_id
+        FOREIGN KEY (user_id) REFERENCES movie_checker.users(id)
+        ON DELETE CASCADE
+);
+
+CREATE TABLE movie_checker.user_movies_genre_stats (
+    user_id BIGINT NOT NULL,
+    genre VARCHAR(100) NOT NULL,
+    movies_count INT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (user_id, genre),
+
+    CONSTRAINT fk_t_user_movies_genre_stats_c_user_id
+        FOREIGN KEY (user_id) REFERENCES movie_checker.users(id)
+        ON DELETE CASCADE
+);
+
+CREATE TABLE movie_checker.user_movies_monthly_stats (
+    user_id BIGINT NOT NULL,
+    month DATE NOT NULL, -- first day of the month
+    movies_count INT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (user_id, month),
+
+    CONSTRAINT fk_t_user_movies_monthly_stats_c_user_id
+        FOREIGN KEY (user_id) REFERENCES movie_checker.users(id)
+        ON DELETE CASCADE
+);
+
+-- Backfill from the existing collections
+
+INSERT INTO movie_checker.user_movies_stats
+    (user_id, watched_count, watch_list_count, favorite_count, rated_count, user_rate_sum)
+SELECT
+    user_id,
+    COUNT(*) FILTER (WHERE status = 'WATCHED'),
+    COUNT(*) FILTER (WHERE status = 'WATCH_LIST'),
+    COUNT(*) FILTER (WHERE is_favorite),
+    COUNT(user_rate),
+    COALESCE(SUM(user_rate), 0)
+FROM movie_checker.user_movies
+GROUP BY user_id;
+
+INSERT INTO movie_checker.user_movies_genre_stats (user_id, genre, movies_count)
+SELECT um.user_id, g.genre, COUNT(*)
+FROM movie_checker.user_movies um
+JOIN movie_checker.movie_details md ON md.id = um.movie_details_id
+CROSS JOIN LATERAL (
+    SELECT DISTINCT TRIM(genre) AS genre
+    FROM regexp_split_to_table(md.genre, ',') AS genre
+) g
+WHERE g.genre <> '' AND g.genre <> 'N/A'
+GROUP BY um.user_id, g.genre;
+
+INSERT INTO movie_checker.user_movies_monthly_stats (user_id, month, movies_count)
+SELECT user_id, CAST(date_trunc('month', added_at) AS DATE), COUNT(*)
+FROM movie_checker.user_movies
+WHERE added_at IS NOT NULL
+GROUP BY user_id, CAST(date_trunc('month', added_at) AS DATE);
@@ -0,0 +1,30 @@
+-- Global per-movie counters behind the leaderboards and search ranking, flushed in batches by MoviePopularityService
+
+CREATE TABLE movie_checker.movie_popularity (
+    movie_details_id BIGINT PRIMARY KEY,
+    watched_count BIGINT NOT NULL DEFAULT 0,
+    favorite_count BIGINT NOT NULL DEFAULT 0,
+    rated_count BIGINT NOT NULL DEFAULT 0,
+    user_rate_sum DECIMAL(14, 1) NOT NULL DEFAULT 0,
+
+    CONSTRAINT fk_t_movie_popularity_c_movie_details_id
+        FOREIGN KEY (movie_details_id) REFERENCES movie_checker.movie_details(id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_movie_popularity_watched_count
+ON movie_checker.movie_popularity (watched_count DESC);
+
+CREATE INDEX idx_movie_popularity_favorite_count
+ON movie_checker.movie_popularity (favorite_count DESC);
+
+INSERT INTO movie_checker.movie_popularity
+    (movie_details_id, watched_count, favorite_count, rated_count, user_rate_sum)
+SELECT
+    movie_details_id,
+    COUNT(*) FILTER (WHERE status = 'WATCHED'),
+    COUNT(*) FILTER (WHERE is_favorite),
+    COUNT(user_rate),
+    COALESCE(SUM(user_rate), 0)
+FROM movie_checker.user_movies
+GROUP BY movie_details_id;
@@ -0,0 +1,19 @@
+-- Precomputed top-N similar movies per movie, rebuilt by MovieSimilarityService
+
+CREATE TABLE movie_checker.movie_similarity (
+    movie_details_id BIGINT NOT NULL,
+    rank SMALLINT NOT NULL,
+    similar_movie_details_id BIGINT NOT NULL,
+    score REAL NOT NULL,
+    computed_at TIMESTAMP NOT NULL,
+
+    PRIMARY KEY (movie_details_id, rank),
+
+    CONSTRAINT fk_t_movie_similarity_c_movie_details_id
+        FOREIGN KEY (movie_details_id) REFERENCES movie_checker.movie_details(id)
+        ON DELETE CASCADE,
+
+    CONSTRAINT fk_t_movie_similarity_c_similar_movie_details_id
+        FOREIGN KEY (similar_movie_details_id) REFERENCES movie_checker.movie_details(id)
+        ON DELETE CASCADE
+);
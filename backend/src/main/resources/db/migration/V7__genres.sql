@@ -0,0 +1,30 @@
+-- Genre dictionary, each genre id is its bit in movie_details.genre_mask
+
+CREATE TABLE movie_checker.genres (
+    id SMALLINT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE,
+
+    CONSTRAINT check_t_genres_c_id CHECK (id BETWEEN 0 AND 62)
+);
+
+INSERT INTO movie_checker.genres (id, name)
+SELECT ROW_NUMBER() OVER (ORDER BY name) - 1, name
+FROM (
+    SELECT DISTINCT TRIM(g) AS name
+    FROM movie_checker.movie_details md,
+        regexp_split_to_table(md.genre, ',') AS g
+    WHERE TRIM(g) NOT IN ('', 'N/A')
+) names
+ORDER BY name
+LIMIT 63;
+
+ALTER TABLE movie_checker.movie_details
+ADD COLUMN genre_mask BIGINT NOT NULL DEFAULT 0;
+
+UPDATE movie_checker.movie_details md
+SET genre_mask = COALESCE((
+    SELECT bit_or(CAST(1 AS BIGINT) << g.id)
+    FROM regexp_split_to_table(md.genre, ',') AS s
+    JOIN movie_checker.genres g ON g.name = TRIM(s)
+), 0)
+WHERE md.genre IS NOT NULL;
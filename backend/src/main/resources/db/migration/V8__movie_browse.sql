@@ -0,0 +1,28 @@
+-- Indexes for /movies/browse, all ending in id for the keyset order
+
+CREATE INDEX idx_movie_type_year
+ON movie_checker.movie_details (type, year, id);
+
+CREATE INDEX idx_movie_year
+ON movie_checker.movie_details (year, id)
+WHERE year IS NOT NULL;
+
+CREATE INDEX idx_movie_imdb_rate
+ON movie_checker.movie_details (imdb_rate, id)
+WHERE imdb_rate IS NOT NULL;
+
+-- Pre-aggregated facet counts, refreshed periodically by MovieBrowseService
+
+CREATE MATERIALIZED VIEW movie_checker.movie_facet_summary AS
+SELECT
+    COALESCE(year, -1) AS year,
+    COALESCE(type, '') AS type,
+    genre_mask,
+    COALESCE(imdb_rate, -1) AS imdb_rate,
+    COUNT(*) AS movies_count
+FROM movie_checker.movie_details
+GROUP BY COALESCE(year, -1), COALESCE(type, ''), genre_mask, COALESCE(imdb_rate, -1);
+
+-- Required by REFRESH MATERIALIZED VIEW CONCURRENTLY
+CREATE UNIQUE INDEX idx_movie_facet_summary
+ON movie_checker.movie_facet_summary (year, type, genre_mask, imdb_rate);
@@ -0,0 +1,13 @@
+-- Version markers behind the ETag / Last-Modified headers. The application bumps them after a
+-- write that changed rows.
+
+ALTER TABLE movie_checker.user_movies_stats
+ADD COLUMN collection_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE movie_checker.catalog_version (
+    id INT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+INSERT INTO movie_checker.catalog_version (id) VALUES (1);
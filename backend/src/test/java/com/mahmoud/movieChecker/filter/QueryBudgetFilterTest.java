@@ -0,0 +1,86 @@
+package com.mahmoud.movieChecker.filter;
+
+import com.mahmoud.movieChecker.exception.QueryBudgetExceededException;
+import com.mahmoud.movieChecker.monitoring.QueryBudget;
+import com.mahmoud.movieChecker.monitoring.QueryBudgetMode;
+import com.mahmoud.movieChecker.monitoring.QueryCountingInspector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryBudgetFilterTest {
+    private final QueryCountingInspector inspector = new QueryCountingInspector();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void failModeThrowsWhenStatementsGoOverBudget() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(QueryBudgetMode.FAIL, meterRegistry);
+        FilterChain chain = chainRunning(3, "twoStatements");
+
+        assertThrows(
+            QueryBudgetExceededException.class,
+            () -> filter.doFilter(request("twoStatements"), new MockHttpServletResponse(), chain)
+        );
+    }
+
+    @Test
+    void failModeAcceptsRequestsWithinBudget() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(QueryBudgetMode.FAIL, meterRegistry);
+        FilterChain chain = chainRunning(2, "twoStatements");
+
+        assertDoesNotThrow(() -> filter.doFilter(request("twoStatements"), new MockHttpServletResponse(), chain));
+    }
+
+    @Test
+    void logModeCountsInsteadOfThrowing() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(QueryBudgetMode.LOG, meterRegistry);
+
+        filter.doFilter(request("twoStatements"), new MockHttpServletResponse(), chainRunning(5, "twoStatements"));
+
+        assertEquals(1.0, meterRegistry.get("moviechecker.http.queries.over_budget").counter().count());
+    }
+
+    @Test
+    void endpointsWithoutBudgetAreNotChecked() throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(QueryBudgetMode.FAIL, meterRegistry);
+        FilterChain chain = chainRunning(50, "unbudgeted");
+
+        assertDoesNotThrow(() -> filter.doFilter(request("unbudgeted"), new MockHttpServletResponse(), chain));
+    }
+
+    private static MockHttpServletRequest request(String handler) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/" + handler);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/test/" + handler);
+        return request;
+    }
+
+    // Stands in for the dispatcher: resolves the handler and runs the given number of statements.
+    private FilterChain chainRunning(int statements, String handler) throws NoSuchMethodException {
+        HandlerMethod handlerMethod = new HandlerMethod(new TestController(), TestController.class.getMethod(handler));
+
+        return (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handlerMethod);
+
+            for (int i = 0; i < statements; i++) {
+                inspector.inspect("select 1");
+            }
+        };
+    }
+
+    static class TestController {
+        @QueryBudget(statements = 2)
+        public void twoStatements() {
+        }
+
+        public void unbudgeted() {
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.ConcurrencyLimitProperties;
+import com.mahmoud.movieChecker.security.annotation.AdaptiveLimit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitServiceTest {
+    private final ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long now;
+
+    @Test
+    void shedsRequestsOverTheLimit() {
+        properties.getGroups().put(AdaptiveLimit.Group.SEARCH, new ConcurrencyLimitProperties.Limit(2, 1, 10, Duration.ofSeconds(1)));
+        ConcurrencyLimitService service = new ConcurrencyLimitService(properties, meterRegistry);
+
+        ConcurrencyLimitService.Permit first = service.tryAcquire(AdaptiveLimit.Group.SEARCH);
+        assertNotNull(service.tryAcquire(AdaptiveLimit.Group.SEARCH));
+        assertNull(service.tryAcquire(AdaptiveLimit.Group.SEARCH));
+
+        // Releasing twice frees one slot only.
+        first.release(false);
+        first.release(false);
+
+        assertNotNull(service.tryAcquire(AdaptiveLimit.Group.SEARCH));
+        assertNull(service.tryAcquire(AdaptiveLimit.Group.SEARCH));
+        assertEquals(2, shed("search"));
+        assertEquals(2, meterRegistry.get("moviechecker.concurrency.inflight").tag("group", "search").gauge().value());
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        properties.setEnabled(false);
+        properties.getGroups().put(AdaptiveLimit.Group.SEARCH, new ConcurrencyLimitProperties.Limit(1, 1, 1, Duration.ofSeconds(1)));
+        ConcurrencyLimitService service = new ConcurrencyLimitService(properties, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(service.tryAcquire(AdaptiveLimit.Group.SEARCH));
+        }
+
+        assertEquals(0, shed("search"));
+    }
+
+    @Test
+    void growsWhileLatencyHoldsUnderLoad() {
+        ConcurrencyLimitService.Limiter limiter = limiter(new ConcurrencyLimitProperties.Limit(10, 2, 100, Duration.ofSeconds(1)));
+
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.limit(), 10, false);
+        }
+
+        assertTrue(limiter.limit() > 20, "limit " + limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void holdsWhenMostOfTheLimitIsUnused() {
+        ConcurrencyLimitService.Limiter limiter = limiter(new ConcurrencyLimitProperties.Limit(10, 2, 100, Duration.ofSeconds(1)));
+
+        for (int i = 0; i < 20; i++) {
+            window(limiter, 3, 10, false);
+        }
+
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void shrinksWhenLatencyClimbsAndRecoversAfterwards() {
+        ConcurrencyLimitService.Limiter limiter = limiter(new ConcurrencyLimitProperties.Limit(40, 2, 100, Duration.ofSeconds(1)));
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, limiter.limit(), 10, false);
+        }
+
+        int healthy = limiter.limit();
+
+        for (int i = 0; i < 15; i++) {
+            window(limiter, limiter.limit(), 100, false);
+        }
+
+        int overloaded = limiter.limit();
+        assertTrue(overloaded < healthy / 2, healthy + " -> " + overloaded);
+
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.limit(), 10, false);
+        }
+
+        assertTrue(limiter.limit() > overloaded * 2, overloaded + " -> " + limiter.limit());
+    }
+
+    @Test
+    void backsOffOnFailuresDownToTheMinimum() {
+        ConcurrencyLimitService.Limiter limiter = limiter(new ConcurrencyLimitProperties.Limit(20, 3, 100, Duration.ofSeconds(1)));
+
+        window(limiter, 20, 10, true);
+        assertEquals(18, limiter.limit());
+
+        // Failures count even when the group is mostly idle.
+        for (int i = 0; i < 50; i++) {
+            window(limiter, 1, 10, true);
+        }
+
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void backsOffOverTheMaxLatency() {
+        ConcurrencyLimitService.Limiter limiter = limiter(new ConcurrencyLimitProperties.Limit(40, 2, 100, Duration.ofSeconds(1)));
+
+        // Steady from the first window, so the gradient alone would keep growing.
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.limit(), 1500, false);
+        }
+
+        assertTrue(limiter.limit() < 20, "limit " + limiter.limit());
+    }
+
+    private ConcurrencyLimitService.Limiter limiter(ConcurrencyLimitProperties.Limit limit) {
+        properties.setMinWindowSamples(1);
+
+        ConcurrencyLimitService.Limiter limiter = new ConcurrencyLimitService.Limiter(limit, properties, meterRegistry, AdaptiveLimit.Group.SEARCH);
+        now = System.nanoTime();
+
+        return limiter;
+    }
+
+    // One full window: the given number of requests in flight together, the last one closing the window.
+    private void window(ConcurrencyLimitService.Limiter limiter, int concurrency, long latencyMillis, boolean failed) {
+        long latency = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        long windowEnd = now + properties.getWindow().toNanos();
+
+        for (int i = 0; i < concurrency; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        for (int i = 0; i < concurrency; i++) {
+            long finishedAt = i == concurrency - 1 ? windowEnd : now + i;
+
+            limiter.release(finishedAt - latency, finishedAt, failed, true);
+        }
+
+        now = windowEnd;
+    }
+
+    private double shed(String group) {
+        return meterRegistry.get("moviechecker.concurrency.requests").tags("group", group, "result", "shed").counter().count();
+    }
+}
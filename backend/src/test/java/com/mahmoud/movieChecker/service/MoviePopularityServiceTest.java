@@ -0,0 +1,92 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.entity.MovieStatus;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.mahmoud.movieChecker.repository.MoviePopularityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MoviePopularityServiceTest {
+    private static final UserMoviesSnapshot WATCHED = new UserMoviesSnapshot(true, MovieStatus.WATCHED, false, null, null, 0);
+
+    private final MoviePopularityRepository moviePopularityRepository = mock(MoviePopularityRepository.class);
+    private final MoviePopularityService service = new MoviePopularityService(
+        moviePopularityRepository,
+        mock(MovieDetailsRepository.class),
+        mock(CacheVersionService.class)
+    );
+
+    // Watched counts as written by the flushes, per movie.
+    private final Map<Long, Long> flushedWatched = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void recordFlushes() {
+        when(moviePopularityRepository.addToPopularity(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Long[] movieIds = invocation.getArgument(0);
+            Long[] watched = invocation.getArgument(1);
+
+            for (int i = 0; i < movieIds.length; i++) {
+                flushedWatched.merge(movieIds[i], watched[i], Long::sum);
+            }
+
+            return movieIds.length;
+        });
+    }
+
+    @Test
+    void forgetsMoviesOnceTheirChangesAreFlushed() {
+        service.recordChange(1L, UserMoviesSnapshot.ABSENT, WATCHED);
+        service.recordChange(2L, UserMoviesSnapshot.ABSENT, WATCHED);
+        service.recordChange(2L, WATCHED, UserMoviesSnapshot.ABSENT);
+        assertEquals(2, service.pendingMovies());
+
+        service.flushCounters();
+
+        // Movie 2's changes cancelled out, there was nothing to write for it.
+        assertEquals(0, service.pendingMovies());
+        assertEquals(Map.of(1L, 1L), flushedWatched);
+    }
+
+    @Test
+    void keepsChangesThatRaceWithAFlush() throws Exception {
+        int threads = 4;
+        int changesPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < changesPerThread; i++) {
+                    service.recordChange((long) (i % 8), UserMoviesSnapshot.ABSENT, WATCHED);
+                }
+            }));
+        }
+
+        while (futures.stream().anyMatch(future -> !future.isDone())) {
+            service.flushCounters();
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+        service.flushCounters();
+
+        assertEquals(0, service.pendingMovies());
+        assertEquals((long) threads * changesPerThread, flushedWatched.values().stream().mapToLong(Long::longValue).sum());
+    }
+}
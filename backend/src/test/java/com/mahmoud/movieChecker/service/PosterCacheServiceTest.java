@@ -0,0 +1,207 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.PosterCacheProperties;
+import com.mahmoud.movieChecker.exception.InvalidRequestDataException;
+import com.mahmoud.movieChecker.repository.MovieDetailsRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PosterCacheServiceTest {
+    @TempDir
+    Path directory;
+
+    private final PosterCacheProperties properties = new PosterCacheProperties();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private HttpServer imageHost;
+
+    // Stand-in image host: /<name>.png is a 300x450 PNG seeded by the name (chunked, without a length, under /chunked/), anything else is a 404.
+    @BeforeEach
+    void startImageHost() throws IOException {
+        imageHost = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        imageHost.createContext("/", exchange -> {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                hits.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+
+                if (!path.endsWith(".png")) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+
+                byte[] image = image(path.hashCode());
+
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, path.startsWith("/chunked/") ? 0 : image.length);
+
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(image);
+                }
+            }
+        });
+        imageHost.start();
+
+        properties.setDirectory(directory);
+    }
+
+    @AfterEach
+    void stopImageHost() {
+        imageHost.stop(0);
+    }
+
+    @Test
+    void fetchesEachPosterOnce() throws IOException {
+        PosterCacheService service = service();
+
+        PosterCacheService.Poster first = service.getPoster(url("/a.png"), null).orElseThrow();
+        PosterCacheService.Poster second = service.getPoster(url("/a.png"), null).orElseThrow();
+
+        assertEquals(1, hits.get("/a.png").get());
+        assertEquals(first.etag(), second.etag());
+        assertEquals("image/png", first.contentType());
+        assertEquals(Files.size(first.file()), first.size());
+    }
+
+    @Test
+    void servesPregeneratedThumbnails() throws IOException {
+        properties.setThumbnailWidths(List.of(100, 500));
+        PosterCacheService service = service();
+
+        PosterCacheService.Poster thumbnail = service.getPoster(url("/a.png"), 100).orElseThrow();
+        PosterCacheService.Poster wider = service.getPoster(url("/a.png"), 500).orElseThrow();
+
+        assertEquals("image/jpeg", thumbnail.contentType());
+        assertEquals(100, ImageIO.read(thumbnail.file().toFile()).getWidth());
+        // No upscaling, the 300px original stands in for the 500px thumbnail.
+        assertEquals("image/png", wider.contentType());
+        assertEquals(1, hits.get("/a.png").get());
+        assertThrows(InvalidRequestDataException.class, () -> service.getPoster(url("/a.png"), 200));
+    }
+
+    @Test
+    void evictsLeastRecentlyServedPostersOverMaxSize() throws IOException {
+        properties.setEvictionGracePeriod(Duration.ZERO);
+        PosterCacheService service = service();
+
+        PosterCacheService.Poster a = service.getPoster(url("/a.png"), null).orElseThrow();
+        PosterCacheService.Poster b = service.getPoster(url("/b.png"), null).orElseThrow();
+        properties.setMaxSize(DataSize.ofBytes(a.size() + b.size() + Math.max(a.size(), b.size()) / 2));
+
+        service.getPoster(url("/a.png"), null);
+        PosterCacheService.Poster c = service.getPoster(url("/c.png"), null).orElseThrow();
+
+        assertTrue(Files.exists(a.file()));
+        assertFalse(Files.exists(b.file()));
+        assertTrue(Files.exists(c.file()));
+        assertEquals(a.size() + c.size(), service.cachedBytes());
+
+        // An evicted poster is fetched again.
+        service.getPoster(url("/b.png"), null).orElseThrow();
+        assertEquals(2, hits.get("/b.png").get());
+    }
+
+    @Test
+    void keepsPostersServedWithinTheGracePeriod() throws IOException, InterruptedException {
+        properties.setEvictionGracePeriod(Duration.ofSeconds(1));
+        PosterCacheService service = service();
+
+        PosterCacheService.Poster a = service.getPoster(url("/a.png"), null).orElseThrow();
+        properties.setMaxSize(DataSize.ofBytes(a.size()));
+        PosterCacheService.Poster b = service.getPoster(url("/b.png"), null).orElseThrow();
+
+        // Over the size, but a response may still be sending a.
+        assertTrue(Files.exists(a.file()));
+        assertEquals(a.size() + b.size(), service.cachedBytes());
+
+        Thread.sleep(1100);
+        service.getPoster(url("/c.png"), null).orElseThrow();
+
+        assertFalse(Files.exists(a.file()));
+        assertEquals(1, hits.get("/a.png").get());
+    }
+
+    @Test
+    void keepsTheDiskCacheAcrossRestarts() throws IOException {
+        PosterCacheService.Poster poster = service().getPoster(url("/a.png"), null).orElseThrow();
+        PosterCacheService restarted = service();
+
+        assertEquals(poster.size(), restarted.cachedBytes());
+        assertEquals(poster.etag(), restarted.getPoster(url("/a.png"), null).orElseThrow().etag());
+        assertEquals(1, hits.get("/a.png").get());
+    }
+
+    @Test
+    void returnsNothingWhenTheHostHasNoImage() throws IOException {
+        PosterCacheService service = service();
+
+        assertTrue(service.getPoster(url("/missing.jpg"), null).isEmpty());
+        assertEquals(0, service.cachedBytes());
+    }
+
+    @Test
+    void abortsDownloadsOverTheMaxSize() throws IOException {
+        properties.setMaxDownloadSize(DataSize.ofKilobytes(1));
+        PosterCacheService service = service();
+
+        assertTrue(service.getPoster(url("/a.png"), null).isEmpty());
+        assertTrue(service.getPoster(url("/chunked/a.png"), null).isEmpty());
+        assertEquals(0, service.cachedBytes());
+
+        try (var files = Files.list(directory.resolve("blobs"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private PosterCacheService service() throws IOException {
+        PosterCacheService service = new PosterCacheService(properties, mock(MovieDetailsRepository.class), new SimpleMeterRegistry());
+        service.loadIndex();
+
+        return service;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + imageHost.getAddress().getPort() + path;
+    }
+
+    // Random pixels, so every seed gives a different image (and content hash).
+    private static byte[] image(int seed) throws IOException {
+        BufferedImage image = new BufferedImage(300, 450, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(seed);
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(4) * 0x3F3F3F);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        return png.toByteArray();
+    }
+}
@@ -0,0 +1,132 @@
+package com.mahmoud.movieChecker.service;
+
+import com.mahmoud.movieChecker.config.RateLimitProperties;
+import com.mahmoud.movieChecker.security.annotation.RateLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTest {
+    private static final RateLimit.Endpoint SEARCH = RateLimit.Endpoint.SEARCH;
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+
+    @Test
+    void allowsABurstThenThrottlesUntilTheNextToken() {
+        properties.getLimits().put(SEARCH, new RateLimitProperties.Limit(3, 0.5));
+        RateLimitService service = service();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(service.tryAcquire(SEARCH, 1).isZero());
+        }
+
+        Duration wait = service.tryAcquire(SEARCH, 1);
+
+        assertTrue(wait.compareTo(Duration.ofMillis(1900)) > 0 && wait.compareTo(Duration.ofSeconds(2)) <= 0, wait.toString());
+        // Other clients and endpoint classes have their own buckets.
+        assertTrue(service.tryAcquire(SEARCH, 2).isZero());
+        assertTrue(service.tryAcquire(RateLimit.Endpoint.SUGGEST, 1).isZero());
+    }
+
+    @Test
+    void evictsBucketsOnceTheyAreFullAgain() throws InterruptedException {
+        properties.getLimits().put(SEARCH, new RateLimitProperties.Limit(2, 1000));
+        RateLimitService service = service();
+
+        service.tryAcquire(SEARCH, 1);
+        service.tryAcquire(SEARCH, 2);
+        assertEquals(2, service.trackedClients(SEARCH));
+
+        Thread.sleep(10);
+        service.evictIdleBuckets();
+
+        assertEquals(0, service.trackedClients(SEARCH));
+    }
+
+    @Test
+    void keepsMemoryBoundedWithManyDistinctClients() {
+        properties.setMaxClients(64);
+        properties.setStripes(4);
+        properties.getLimits().put(SEARCH, new RateLimitProperties.Limit(5, 0.001));
+        RateLimitService service = service();
+
+        int throttled = 0;
+
+        for (long client = 0; client < 10_000; client++) {
+            if (!service.tryAcquire(SEARCH, client).isZero()) {
+                throttled++;
+            }
+        }
+
+        assertTrue(service.trackedClients(SEARCH) <= 64);
+        // Everyone past the bound shares one bucket per stripe: 4 stripes x 5 tokens.
+        assertEquals(10_000 - 64 - 4 * 5, throttled);
+    }
+
+    @Test
+    void neverHandsOutMoreThanTheCapacityUnderContention() throws Exception {
+        properties.getLimits().put(SEARCH, new RateLimitProperties.Limit(100, 0.001));
+        RateLimitService service = service();
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+
+                    for (int i = 0; i < 1_000; i++) {
+                        if (service.tryAcquire(SEARCH, 42).isZero()) {
+                            allowed++;
+                        }
+                    }
+
+                    return allowed;
+                }));
+            }
+        }
+
+        int allowed = 0;
+
+        for (Future<Integer> result : results) {
+            allowed += result.get();
+        }
+
+        assertEquals(100, allowed);
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        properties.setEnabled(false);
+        properties.getLimits().put(SEARCH, new RateLimitProperties.Limit(1, 0.001));
+        RateLimitService service = service();
+
+        assertTrue(service.tryAcquire(SEARCH, 1).isZero());
+        assertTrue(service.tryAcquire(SEARCH, 1).isZero());
+    }
+
+    @Test
+    void keepsUsersAndAddressesApart() {
+        long user = RateLimitService.clientKey(7L, "10.0.0.1");
+        long address = RateLimitService.clientKey(null, "10.0.0.1");
+
+        assertEquals(7L, user);
+        assertTrue(address < 0);
+        assertNotEquals(address, RateLimitService.clientKey(null, "10.0.0.2"));
+        assertFalse(RateLimitService.clientKey(null, "::1") >= 0);
+    }
+
+    private RateLimitService service() {
+        return new RateLimitService(properties, new SimpleMeterRegistry());
+    }
+}